@@ -0,0 +1,103 @@
+package org.jmmo.util.benchmarks;
+
+import org.jmmo.util.PathAttributes;
+import org.jmmo.util.StreamUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Walks synthetic directory trees of different fan-out and depth
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilesBenchmark {
+
+    @Param({"4", "16"})
+    int fanOut;
+
+    @Param({"2", "3"})
+    int depth;
+
+    @Param({"8"})
+    int filesPerDirectory;
+
+    Path root;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("stream-util-benchmark");
+        create(root, depth);
+    }
+
+    void create(Path directory, int level) throws IOException {
+        for (int i = 0; i < filesPerDirectory; i++) {
+            Files.write(directory.resolve("file" + i + (i % 2 == 0 ? ".txt" : ".cfg")), new byte[i]);
+        }
+        if (level > 0) {
+            for (int i = 0; i < fanOut; i++) {
+                create(Files.createDirectory(directory.resolve("dir" + i)), level - 1);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> StreamUtil.unchecked(() -> Files.delete(path)));
+        }
+    }
+
+    @Benchmark
+    public long files() {
+        return StreamUtil.files(root).count();
+    }
+
+    @Benchmark
+    public long filesGlob() {
+        return StreamUtil.files(root, "*.txt").count();
+    }
+
+    @Benchmark
+    public long filesWithAttributes() {
+        return StreamUtil.filesWithAttributes(root).mapToLong(file -> file.getAttributes().size()).sum();
+    }
+
+    @Benchmark
+    public long filesParallel() {
+        return StreamUtil.filesParallel(root).count();
+    }
+
+    @Benchmark
+    public long directoriesAndFiles() {
+        return StreamUtil.directoriesAndFiles(root).count();
+    }
+
+    @Benchmark
+    public long filesWalk() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile).count();
+        }
+    }
+}
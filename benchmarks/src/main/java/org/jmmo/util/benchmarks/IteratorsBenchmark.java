@@ -0,0 +1,115 @@
+package org.jmmo.util.benchmarks;
+
+import org.jmmo.util.Iterators;
+import org.jmmo.util.StreamUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterator combinator chains compared with equivalent stream pipelines
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IteratorsBenchmark {
+
+    @Param({"10000"})
+    int size;
+
+    List<Integer> list;
+
+    @Setup
+    public void setUp() {
+        list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+    }
+
+    @Benchmark
+    public long iteratorChain() {
+        final Iterator<Integer> iterator = StreamUtil.iteratorFlatMap(
+                StreamUtil.iteratorFilter(
+                        StreamUtil.iteratorMap(list.iterator(), i -> i * 3),
+                        i -> i % 2 == 0),
+                i -> Arrays.asList(i, i + 1).iterator());
+        long sum = 0;
+        while (iterator.hasNext()) {
+            sum += iterator.next();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long iteratorsFused() {
+        final long[] sum = new long[1];
+        Iterators.from(list)
+                .map(i -> i * 3)
+                .filter(i -> i % 2 == 0)
+                .flatMap(i -> Arrays.asList(i, i + 1).iterator())
+                .forEach(i -> sum[0] += i);
+        return sum[0];
+    }
+
+    @Benchmark
+    public long iteratorsFusedPull() {
+        final Iterator<Integer> iterator = Iterators.from(list)
+                .map(i -> i * 3)
+                .filter(i -> i % 2 == 0)
+                .flatMap(i -> Arrays.asList(i, i + 1).iterator())
+                .iterator();
+        long sum = 0;
+        while (iterator.hasNext()) {
+            sum += iterator.next();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long streamChain() {
+        return list.stream()
+                .map(i -> i * 3)
+                .filter(i -> i % 2 == 0)
+                .flatMap(i -> Arrays.asList(i, i + 1).stream())
+                .mapToLong(Integer::longValue)
+                .sum();
+    }
+
+    @Benchmark
+    public long iteratorMap() {
+        final Iterator<Integer> iterator = StreamUtil.iteratorMap(list.iterator(), i -> i * 3);
+        long sum = 0;
+        while (iterator.hasNext()) {
+            sum += iterator.next();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long iteratorFilter() {
+        final Iterator<Integer> iterator = StreamUtil.iteratorFilter(list.iterator(), i -> i % 2 == 0);
+        long sum = 0;
+        while (iterator.hasNext()) {
+            sum += iterator.next();
+        }
+        return sum;
+    }
+}
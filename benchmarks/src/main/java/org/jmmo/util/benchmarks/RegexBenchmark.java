@@ -0,0 +1,83 @@
+package org.jmmo.util.benchmarks;
+
+import org.jmmo.util.StreamUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streams matches of a log line pattern over a regex heavy input
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegexBenchmark {
+    static final Pattern PATTERN = Pattern.compile("user=(\\d+) took=(\\d+)ms");
+
+    @Param({"10000"})
+    int lines;
+
+    String input;
+
+    @Setup
+    public void setUp() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            builder.append("2020-01-01 12:00:00.000 INFO [worker-").append(i % 8).append("] request user=")
+                    .append(i * 31 % 100000).append(" took=").append(i % 500).append("ms\n");
+        }
+        input = builder.toString();
+    }
+
+    @Benchmark
+    public int matcherLoop() {
+        final Matcher matcher = PATTERN.matcher(input);
+        int sum = 0;
+        while (matcher.find()) {
+            sum += matcher.end(2) - matcher.start(2);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int matchResults() {
+        return StreamUtil.matchResults(PATTERN.matcher(input)).mapToInt(match -> match.end(2) - match.start(2)).sum();
+    }
+
+    @Benchmark
+    public int matchGroups() {
+        return StreamUtil.matchGroups(PATTERN.matcher(input), 2).mapToInt(String::length).sum();
+    }
+
+    @Benchmark
+    public int matches() {
+        return StreamUtil.matches(PATTERN.matcher(input)).mapToInt(match -> match.end(2) - match.start(2)).sum();
+    }
+
+    @Benchmark
+    public int forEachMatch() {
+        final int[] sum = new int[1];
+        StreamUtil.forEachMatch(PATTERN.matcher(input), match -> sum[0] += match.end(2) - match.start(2));
+        return sum[0];
+    }
+
+    @Benchmark
+    public int matchesParallel() {
+        return StreamUtil.matches(PATTERN, input).parallel().mapToInt(match -> match.end(2) - match.start(2)).sum();
+    }
+}
@@ -0,0 +1,70 @@
+package org.jmmo.util.benchmarks;
+
+import org.jmmo.util.StreamUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Supplier based sources and the causes stream
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SourcesBenchmark {
+
+    @Param({"10000"})
+    int size;
+
+    @Param({"16"})
+    int causes;
+
+    Throwable throwable;
+
+    @Setup
+    public void setUp() {
+        throwable = new Exception("root");
+        for (int i = 0; i < causes; i++) {
+            throwable = new RuntimeException("cause " + i, throwable);
+        }
+    }
+
+    @Benchmark
+    public long supply() {
+        final int[] counter = new int[1];
+        return StreamUtil.supply(() -> counter[0] < size ? counter[0]++ : null).mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long supplyInt() {
+        final int[] counter = new int[1];
+        return StreamUtil.supplyInt(() -> counter[0] < size, () -> counter[0]++).asLongStream().sum();
+    }
+
+    @Benchmark
+    public long causes() {
+        return StreamUtil.causes(throwable).count();
+    }
+
+    @Benchmark
+    public long causesLoop() {
+        long count = 0;
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,39 @@
+package org.jmmo.util;
+
+import java.io.Serializable;
+
+/**
+ * Base of the thread safe primitive holders which keeps track of whether a value was ever set.
+ * The holder is marked present only after an update has written its value, so a reader that sees the holder present
+ * always reads a value that was set. The flag and the value are not changed atomically together: while the first update
+ * is returning, a concurrent reader may already see its value but the holder still empty.
+ * An update that fails, like a failed compare and set or an update function that throws, leaves the presence unchanged.
+ */
+public abstract class AbstractConcurrentHolder implements Serializable {
+    private static final long serialVersionUID = -4431021617384552271L;
+
+    private volatile boolean present;
+
+    protected final void markPresent() {
+        // read before write to keep the flag cache line shared once it is set
+        if (!present) {
+            present = true;
+        }
+    }
+
+    /**
+     * @return true if a value was set
+     */
+    public boolean isPresent() {
+        return present;
+    }
+
+    protected abstract String valueString();
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "value=" + (present ? valueString() : "empty") +
+                '}';
+    }
+}
@@ -2,7 +2,9 @@ package org.jmmo.util;
 
 /**
  * The exception that do not collect a stack trace.
- * Useful to exit out from forEach or other stream iteration methods
+ * Useful to exit out from forEach or other stream iteration methods.
+ * Prefer {@link StreamUtil#forEachWhile(java.util.stream.Stream, java.util.function.Predicate)} in tight loops,
+ * it stops without allocating and unwinding an exception.
  */
 public class BreakException extends RuntimeException {
     private static final long serialVersionUID = -2240548921330074632L;
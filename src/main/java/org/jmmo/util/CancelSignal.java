@@ -0,0 +1,26 @@
+package org.jmmo.util;
+
+/**
+ * Cancelable flag which can be set from any thread and is checked by the sources cooperatively
+ * @see StreamUtil#cancelable(java.util.stream.Stream, CancelSignal)
+ * @see WalkOptions.Builder#cancelSignal(CancelSignal)
+ */
+public class CancelSignal implements Cancelable {
+    private volatile boolean canceled;
+
+    @Override
+    public void cancel() {
+        canceled = true;
+    }
+
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    @Override
+    public String toString() {
+        return "CancelSignal{" +
+                "canceled=" + canceled +
+                '}';
+    }
+}
@@ -0,0 +1,86 @@
+package org.jmmo.util;
+
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Thread safe double holder to accumulate values inside lambdas of parallel streams without locks and boxing.
+ * The value is kept as long bits which are compared and set atomically.
+ * Use {@link StripedDoubleHolder} for sums updated by many threads at once.
+ */
+public class ConcurrentDoubleHolder extends AbstractConcurrentHolder {
+    private static final long serialVersionUID = 8312095866104197430L;
+    private static final AtomicLongFieldUpdater<ConcurrentDoubleHolder> BITS = AtomicLongFieldUpdater.newUpdater(ConcurrentDoubleHolder.class, "bits");
+
+    private volatile long bits;
+
+    public ConcurrentDoubleHolder() {
+    }
+
+    public ConcurrentDoubleHolder(double value) {
+        setValue(value);
+    }
+
+    public double getValue() {
+        return Double.longBitsToDouble(bits);
+    }
+
+    public void setValue(double value) {
+        this.bits = Double.doubleToRawLongBits(value);
+        markPresent();
+    }
+
+    /**
+     * @return the new value
+     */
+    public double add(double delta) {
+        return accumulateAndGet(delta, Double::sum);
+    }
+
+    /**
+     * Compares raw bits of the values, so NaN is equal to NaN and 0.0 is not equal to -0.0
+     */
+    public boolean compareAndSet(double expect, double update) {
+        if (BITS.compareAndSet(this, Double.doubleToRawLongBits(expect), Double.doubleToRawLongBits(update))) {
+            markPresent();
+            return true;
+        }
+        return false;
+    }
+
+    public double updateAndGet(DoubleUnaryOperator updateFunction) {
+        long current;
+        double result;
+        do {
+            current = bits;
+            result = updateFunction.applyAsDouble(Double.longBitsToDouble(current));
+        } while (!BITS.compareAndSet(this, current, Double.doubleToRawLongBits(result)));
+        markPresent();
+        return result;
+    }
+
+    public double accumulateAndGet(double x, DoubleBinaryOperator accumulatorFunction) {
+        long current;
+        double result;
+        do {
+            current = bits;
+            result = accumulatorFunction.applyAsDouble(Double.longBitsToDouble(current), x);
+        } while (!BITS.compareAndSet(this, current, Double.doubleToRawLongBits(result)));
+        markPresent();
+        return result;
+    }
+
+    /**
+     * @return the value or empty if it was not set
+     */
+    public OptionalDouble toOptional() {
+        return isPresent() ? OptionalDouble.of(getValue()) : OptionalDouble.empty();
+    }
+
+    @Override
+    protected String valueString() {
+        return String.valueOf(getValue());
+    }
+}
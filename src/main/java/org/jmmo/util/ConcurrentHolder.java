@@ -0,0 +1,78 @@
+package org.jmmo.util;
+
+import java.io.Serializable;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BinaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * Thread safe holder to make possible have a side effect inside lambdas of parallel streams
+ * @param <T> type of a value that the holder holds
+ */
+public class ConcurrentHolder<T> implements Serializable {
+    private static final long serialVersionUID = -1528803297718566409L;
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentHolder, Object> VALUE =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentHolder.class, Object.class, "value");
+
+    private volatile T value;
+
+    public ConcurrentHolder() {
+    }
+
+    public ConcurrentHolder(T value) {
+        this.value = value;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public void setValue(T value) {
+        this.value = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getAndSet(T value) {
+        return (T) VALUE.getAndSet(this, value);
+    }
+
+    /**
+     * Compares the values by identity
+     */
+    public boolean compareAndSet(T expect, T update) {
+        return VALUE.compareAndSet(this, expect, update);
+    }
+
+    public T updateAndGet(UnaryOperator<T> updateFunction) {
+        T current;
+        T result;
+        do {
+            current = value;
+            result = updateFunction.apply(current);
+        } while (!VALUE.compareAndSet(this, current, result));
+        return result;
+    }
+
+    public T accumulateAndGet(T x, BinaryOperator<T> accumulatorFunction) {
+        T current;
+        T result;
+        do {
+            current = value;
+            result = accumulatorFunction.apply(current, x);
+        } while (!VALUE.compareAndSet(this, current, result));
+        return result;
+    }
+
+    public Optional<T> toOptional() {
+        return Optional.ofNullable(value);
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentHolder{" +
+                "value=" + value +
+                '}';
+    }
+}
@@ -0,0 +1,81 @@
+package org.jmmo.util;
+
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Thread safe int holder to accumulate values inside lambdas of parallel streams without locks and boxing.
+ * Use {@link StripedLongHolder} for counters updated by many threads at once.
+ */
+public class ConcurrentIntHolder extends AbstractConcurrentHolder {
+    private static final long serialVersionUID = -6195730291364488312L;
+    private static final AtomicIntegerFieldUpdater<ConcurrentIntHolder> VALUE = AtomicIntegerFieldUpdater.newUpdater(ConcurrentIntHolder.class, "value");
+
+    private volatile int value;
+
+    public ConcurrentIntHolder() {
+    }
+
+    public ConcurrentIntHolder(int value) {
+        setValue(value);
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public void setValue(int value) {
+        this.value = value;
+        markPresent();
+    }
+
+    /**
+     * @return the new value
+     */
+    public int add(int delta) {
+        final int result = VALUE.addAndGet(this, delta);
+        markPresent();
+        return result;
+    }
+
+    /**
+     * @return the new value
+     */
+    public int increment() {
+        return add(1);
+    }
+
+    public boolean compareAndSet(int expect, int update) {
+        if (VALUE.compareAndSet(this, expect, update)) {
+            markPresent();
+            return true;
+        }
+        return false;
+    }
+
+    public int updateAndGet(IntUnaryOperator updateFunction) {
+        final int result = VALUE.updateAndGet(this, updateFunction);
+        markPresent();
+        return result;
+    }
+
+    public int accumulateAndGet(int x, IntBinaryOperator accumulatorFunction) {
+        final int result = VALUE.accumulateAndGet(this, x, accumulatorFunction);
+        markPresent();
+        return result;
+    }
+
+    /**
+     * @return the value or empty if it was not set
+     */
+    public OptionalInt toOptional() {
+        return isPresent() ? OptionalInt.of(value) : OptionalInt.empty();
+    }
+
+    @Override
+    protected String valueString() {
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,81 @@
+package org.jmmo.util;
+
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Thread safe long holder to accumulate values inside lambdas of parallel streams without locks and boxing.
+ * Use {@link StripedLongHolder} for counters updated by many threads at once.
+ */
+public class ConcurrentLongHolder extends AbstractConcurrentHolder {
+    private static final long serialVersionUID = 2897214539084823761L;
+    private static final AtomicLongFieldUpdater<ConcurrentLongHolder> VALUE = AtomicLongFieldUpdater.newUpdater(ConcurrentLongHolder.class, "value");
+
+    private volatile long value;
+
+    public ConcurrentLongHolder() {
+    }
+
+    public ConcurrentLongHolder(long value) {
+        setValue(value);
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public void setValue(long value) {
+        this.value = value;
+        markPresent();
+    }
+
+    /**
+     * @return the new value
+     */
+    public long add(long delta) {
+        final long result = VALUE.addAndGet(this, delta);
+        markPresent();
+        return result;
+    }
+
+    /**
+     * @return the new value
+     */
+    public long increment() {
+        return add(1);
+    }
+
+    public boolean compareAndSet(long expect, long update) {
+        if (VALUE.compareAndSet(this, expect, update)) {
+            markPresent();
+            return true;
+        }
+        return false;
+    }
+
+    public long updateAndGet(LongUnaryOperator updateFunction) {
+        final long result = VALUE.updateAndGet(this, updateFunction);
+        markPresent();
+        return result;
+    }
+
+    public long accumulateAndGet(long x, LongBinaryOperator accumulatorFunction) {
+        final long result = VALUE.accumulateAndGet(this, x, accumulatorFunction);
+        markPresent();
+        return result;
+    }
+
+    /**
+     * @return the value or empty if it was not set
+     */
+    public OptionalLong toOptional() {
+        return isPresent() ? OptionalLong.of(value) : OptionalLong.empty();
+    }
+
+    @Override
+    protected String valueString() {
+        return String.valueOf(value);
+    }
+}
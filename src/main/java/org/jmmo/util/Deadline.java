@@ -0,0 +1,52 @@
+package org.jmmo.util;
+
+import java.time.Duration;
+
+/**
+ * Point in time measured by {@link System#nanoTime()}, so it is not affected by wall clock changes.
+ * A deadline can be passed through several calls to share one time budget between them.
+ */
+public final class Deadline {
+    private static final Deadline NONE = new Deadline(Long.MAX_VALUE);
+
+    private final long nanos;
+
+    private Deadline(long nanos) {
+        this.nanos = nanos;
+    }
+
+    public static Deadline after(Duration timeout) {
+        final long start = System.nanoTime();
+        final long timeoutNanos = timeout.compareTo(Duration.ofNanos(Long.MAX_VALUE)) >= 0 ? Long.MAX_VALUE : timeout.toNanos();
+        return timeoutNanos == Long.MAX_VALUE ? NONE : new Deadline(start + timeoutNanos);
+    }
+
+    /**
+     * @return deadline which is never reached
+     */
+    public static Deadline none() {
+        return NONE;
+    }
+
+    /**
+     * @return remaining nanoseconds, zero or negative if the deadline is reached
+     */
+    public long remainingNanos() {
+        return this == NONE ? Long.MAX_VALUE : nanos - System.nanoTime();
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(remainingNanos(), 0));
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{" +
+                "remaining=" + (this == NONE ? "none" : remaining()) +
+                '}';
+    }
+}
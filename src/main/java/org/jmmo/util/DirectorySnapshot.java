@@ -0,0 +1,235 @@
+package org.jmmo.util;
+
+import org.jmmo.util.impl.ChangesIterator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Index of a directory tree: size, modification time and file key of every entry.
+ * Directories are keyed by their path relative to the root with '/' separators, the root itself is "".
+ * Symbolic links are recorded as they are and are not followed.
+ * @see StreamUtil#changes(Path, DirectorySnapshot)
+ */
+public class DirectorySnapshot {
+    private static final int MAGIC = 0x4A534E50;
+    private static final int VERSION = 1;
+
+    private final long time;
+    private final Map<String, Directory> directories;
+
+    public DirectorySnapshot(long time, Map<String, Directory> directories) {
+        this.time = time;
+        this.directories = directories;
+    }
+
+    public static DirectorySnapshot empty() {
+        return new DirectorySnapshot(0, Collections.emptyMap());
+    }
+
+    /**
+     * Walks a given directory and its subdirectories and takes a snapshot of them
+     */
+    public static DirectorySnapshot take(Path root) {
+        final Holder<DirectorySnapshot> holder = new Holder<>();
+        new ChangesIterator(root, empty(), holder::setValue, false).forEachRemaining(change -> {});
+        return holder.getValue();
+    }
+
+    /**
+     * @return time in milliseconds when the walk was started
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @param relative path of the directory relative to the root with '/' separators
+     * @return directory or null if it is not in the snapshot
+     */
+    public Directory getDirectory(String relative) {
+        return directories.get(relative);
+    }
+
+    public Map<String, Directory> getDirectories() {
+        return Collections.unmodifiableMap(directories);
+    }
+
+    /**
+     * @return number of files and directories in the snapshot excluding the root
+     */
+    public int size() {
+        return directories.values().stream().mapToInt(directory -> directory.children.size()).sum();
+    }
+
+    public void write(OutputStream outputStream) throws IOException {
+        final DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(time);
+        out.writeInt(directories.size());
+        for (Map.Entry<String, Directory> directory : directories.entrySet()) {
+            out.writeUTF(directory.getKey());
+            out.writeLong(directory.getValue().modified);
+            out.writeInt(directory.getValue().children.size());
+            for (Map.Entry<String, Entry> child : directory.getValue().children.entrySet()) {
+                final Entry entry = child.getValue();
+                out.writeUTF(child.getKey());
+                out.writeBoolean(entry.directory);
+                out.writeLong(entry.size);
+                out.writeLong(entry.modified);
+                out.writeUTF(entry.key == null ? "" : entry.key);
+            }
+        }
+        out.flush();
+    }
+
+    public static DirectorySnapshot read(InputStream inputStream) throws IOException {
+        final DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a directory snapshot");
+        }
+        final int version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported directory snapshot version " + version);
+        }
+
+        final long time = in.readLong();
+        final int directoriesCount = in.readInt();
+        final Map<String, Directory> directories = new HashMap<>(directoriesCount * 4 / 3 + 1);
+        for (int i = 0; i < directoriesCount; i++) {
+            final String relative = in.readUTF();
+            final long modified = in.readLong();
+            final int childrenCount = in.readInt();
+            final Map<String, Entry> children = new HashMap<>(childrenCount * 4 / 3 + 1);
+            for (int j = 0; j < childrenCount; j++) {
+                final String name = in.readUTF();
+                final boolean directory = in.readBoolean();
+                final long size = in.readLong();
+                final long entryModified = in.readLong();
+                final String key = in.readUTF();
+                children.put(name, new Entry(directory, size, entryModified, key.isEmpty() ? null : key));
+            }
+            directories.put(relative, new Directory(modified, children));
+        }
+
+        return new DirectorySnapshot(time, directories);
+    }
+
+    public void save(Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(out);
+        }
+    }
+
+    public static DirectorySnapshot load(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return read(in);
+        }
+    }
+
+    public static class Directory {
+        private final long modified;
+        private final Map<String, Entry> children;
+
+        public Directory(long modified, Map<String, Entry> children) {
+            this.modified = modified;
+            this.children = children;
+        }
+
+        /**
+         * @return modification time in nanoseconds
+         */
+        public long getModified() {
+            return modified;
+        }
+
+        /**
+         * @return entries by their file names
+         */
+        public Map<String, Entry> getChildren() {
+            return Collections.unmodifiableMap(children);
+        }
+    }
+
+    public static class Entry {
+        private final boolean directory;
+        private final long size;
+        private final long modified;
+        private final String key;
+
+        public Entry(boolean directory, long size, long modified, String key) {
+            this.directory = directory;
+            this.size = size;
+            this.modified = modified;
+            this.key = key;
+        }
+
+        public static Entry of(BasicFileAttributes attributes) {
+            return new Entry(attributes.isDirectory(), attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+                    attributes.fileKey() == null ? null : attributes.fileKey().toString());
+        }
+
+        public boolean isDirectory() {
+            return directory;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @return modification time in nanoseconds
+         */
+        public long getModified() {
+            return modified;
+        }
+
+        /**
+         * @return string representation of the file key or null if it is not available
+         */
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Entry entry = (Entry) o;
+            return directory == entry.directory && size == entry.size && modified == entry.modified && Objects.equals(key, entry.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(directory, size, modified, key);
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                    "directory=" + directory +
+                    ", size=" + size +
+                    ", modified=" + modified +
+                    ", key='" + key + '\'' +
+                    '}';
+        }
+    }
+}
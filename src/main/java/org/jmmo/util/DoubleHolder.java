@@ -0,0 +1,82 @@
+package org.jmmo.util;
+
+import java.io.Serializable;
+import java.util.OptionalDouble;
+
+/**
+ * Mutable double holder to make possible have a side effect inside lambdas without boxing.
+ * It is not thread safe, use {@link ConcurrentDoubleHolder} in parallel streams.
+ */
+public class DoubleHolder implements Serializable {
+    private static final long serialVersionUID = 4410983562107722180L;
+
+    private double value;
+    private boolean present;
+
+    public DoubleHolder() {
+    }
+
+    public DoubleHolder(double value) {
+        setValue(value);
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public void setValue(double value) {
+        this.value = value;
+        this.present = true;
+    }
+
+    public void add(double delta) {
+        setValue(value + delta);
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * @return true if a value was set
+     */
+    public boolean isPresent() {
+        return present;
+    }
+
+    public void clear() {
+        value = 0;
+        present = false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        DoubleHolder holder = (DoubleHolder) o;
+        return present == holder.present && Double.compare(value, holder.value) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return present ? Double.hashCode(value) : -1;
+    }
+
+    /**
+     * @return the value or empty if it was not set
+     */
+    public OptionalDouble toOptional() {
+        return present ? OptionalDouble.of(value) : OptionalDouble.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "DoubleHolder{" +
+                "value=" + (present ? String.valueOf(value) : "empty") +
+                '}';
+    }
+}
@@ -0,0 +1,280 @@
+package org.jmmo.util;
+
+import org.jmmo.util.impl.BufferPool;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Content digests of files and detection of duplicate files.
+ * Duplicates are found in stages: files are grouped by size, files of the same size are grouped by the digest
+ * of their first and last blocks, only the files which are still not distinguished are read fully.
+ * Files of every stage are read in parallel into pooled direct buffers.
+ */
+public class FileDigests {
+    public static final String DEFAULT_ALGORITHM = "SHA-256";
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    public static final FileDigests DEFAULT = new FileDigests(DEFAULT_ALGORITHM, DEFAULT_BLOCK_SIZE, DEFAULT_BUFFER_SIZE);
+
+    private final String algorithm;
+    private final int blockSize;
+    private final BufferPool buffers;
+
+    /**
+     * @param algorithm message digest algorithm
+     * @param blockSize size of the first and the last blocks which are compared before reading the whole files
+     * @param bufferSize size of the direct buffers the files are read into
+     */
+    public FileDigests(String algorithm, int blockSize, int bufferSize) {
+        if (blockSize < 1 || blockSize > bufferSize) {
+            throw new IllegalArgumentException("Block size must be positive and not greater than the buffer size: " + blockSize);
+        }
+        this.algorithm = algorithm;
+        this.blockSize = blockSize;
+        this.buffers = new BufferPool(bufferSize, Runtime.getRuntime().availableProcessors() * 2);
+        newDigest();
+    }
+
+    /**
+     * @return digest of the whole file content
+     */
+    public byte[] digest(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return digest(channel, 0, Long.MAX_VALUE).digest();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Finds groups of files with the same content, sizes of the files are read from the file system
+     * @return groups of at least two files
+     */
+    public Stream<List<Path>> duplicates(Stream<Path> files) {
+        final Map<Long, List<Path>> bySize = files.parallel()
+                .map(path -> new Candidate(path, size(path)))
+                .filter(candidate -> candidate.size >= 0)
+                .collect(Collectors.groupingBy(candidate -> candidate.size,
+                        Collectors.mapping(candidate -> candidate.path, Collectors.toList())));
+        return duplicates(bySize);
+    }
+
+    /**
+     * Finds groups of files with the same content, sizes of the files are taken from the attributes read by the walk
+     * @return groups of at least two files
+     * @see StreamUtil#filesWithAttributes(Path, String)
+     */
+    public Stream<List<Path>> duplicatesWithAttributes(Stream<PathAttributes> files) {
+        final Map<Long, List<Path>> bySize = files
+                .collect(Collectors.groupingBy(file -> file.getAttributes().size(),
+                        Collectors.mapping(PathAttributes::getPath, Collectors.toList())));
+        return duplicates(bySize);
+    }
+
+    private Stream<List<Path>> duplicates(Map<Long, List<Path>> bySize) {
+        final List<Candidate> candidates = new ArrayList<>();
+        final List<List<Path>> result = new ArrayList<>();
+        for (Map.Entry<Long, List<Path>> group : bySize.entrySet()) {
+            if (group.getValue().size() > 1) {
+                if (group.getKey() == 0) {
+                    result.add(group.getValue());
+                } else {
+                    for (Path path : group.getValue()) {
+                        candidates.add(new Candidate(path, group.getKey()));
+                    }
+                }
+            }
+        }
+
+        final List<Candidate> colliding = new ArrayList<>();
+        for (List<Candidate> group : groupByDigest(candidates, this::edgesDigest)) {
+            if (group.get(0).size <= 2L * blockSize) {
+                // the first and the last blocks cover the whole files
+                result.add(paths(group));
+            } else {
+                colliding.addAll(group);
+            }
+        }
+
+        for (List<Candidate> group : groupByDigest(colliding, candidate -> digest(candidate.path, candidate.size))) {
+            result.add(paths(group));
+        }
+        return result.stream();
+    }
+
+    /**
+     * Digests the candidates in parallel and groups them by size and digest
+     * @return groups of at least two candidates
+     */
+    private static Collection<List<Candidate>> groupByDigest(List<Candidate> candidates, Function<Candidate, ByteBuffer> digest) {
+        final Map<Object, List<Candidate>> groups = candidates.parallelStream()
+                .map(candidate -> new Digested(candidate, digest.apply(candidate)))
+                .filter(digested -> digested.digest != null)
+                .collect(Collectors.groupingBy(digested -> new Key(digested.candidate.size, digested.digest),
+                        Collectors.mapping(digested -> digested.candidate, Collectors.toList())));
+        groups.values().removeIf(group -> group.size() < 2);
+        return groups.values();
+    }
+
+    private static List<Path> paths(List<Candidate> candidates) {
+        final List<Path> paths = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            paths.add(candidate.path);
+        }
+        return paths;
+    }
+
+    /**
+     * @return digest of the first and the last blocks or null if the file has gone or changed its size
+     */
+    private ByteBuffer edgesDigest(Candidate candidate) {
+        try (FileChannel channel = FileChannel.open(candidate.path, StandardOpenOption.READ)) {
+            if (channel.size() != candidate.size) {
+                return null;
+            }
+            final MessageDigest digest = digest(channel, 0, blockSize);
+            if (candidate.size > blockSize) {
+                update(digest, channel, Math.max(candidate.size - blockSize, blockSize), blockSize);
+            }
+            return ByteBuffer.wrap(digest.digest());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return digest of the whole file or null if the file has gone or changed its size
+     */
+    private ByteBuffer digest(Path file, long size) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != size) {
+                return null;
+            }
+            return ByteBuffer.wrap(digest(channel, 0, size).digest());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private MessageDigest digest(FileChannel channel, long position, long length) throws IOException {
+        final MessageDigest digest = newDigest();
+        update(digest, channel, position, length);
+        return digest;
+    }
+
+    /**
+     * Updates the digest by the region of the file, the region ends earlier if the file is shorter
+     */
+    private void update(MessageDigest digest, FileChannel channel, long position, long length) throws IOException {
+        final ByteBuffer buffer = buffers.acquire();
+        try {
+            long remaining = length;
+            while (remaining > 0) {
+                ((Buffer) buffer).clear();
+                if (remaining < buffer.capacity()) {
+                    ((Buffer) buffer).limit((int) remaining);
+                }
+                final int read = channel.read(buffer, position);
+                if (read < 0) {
+                    return;
+                }
+                position += read;
+                remaining -= read;
+                ((Buffer) buffer).flip();
+                digest.update(buffer);
+            }
+        } finally {
+            buffers.release(buffer);
+        }
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * @return size of the file or -1 if it has gone
+     */
+    private static long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (NoSuchFileException e) {
+            return -1;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static class Candidate {
+        final Path path;
+        final long size;
+
+        Candidate(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+    }
+
+    static class Digested {
+        final Candidate candidate;
+        final ByteBuffer digest;
+
+        Digested(Candidate candidate, ByteBuffer digest) {
+            this.candidate = candidate;
+            this.digest = digest;
+        }
+    }
+
+    static class Key {
+        final long size;
+        final ByteBuffer digest;
+
+        Key(long size, ByteBuffer digest) {
+            this.size = size;
+            this.digest = digest;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return size == key.size && digest.equals(key.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, digest);
+        }
+    }
+}
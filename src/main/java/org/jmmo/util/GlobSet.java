@@ -0,0 +1,203 @@
+package org.jmmo.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Set of include and exclude globbing patterns compiled into single regular expressions.
+ * Patterns are matched against paths relative to the walked root with '/' separators.
+ * A pattern without '/' is matched against the file name only, so {@code *.java} matches java files at any depth.
+ * {@code **} matches any number of directories, {@code **}{@code /} also matches none, so {@code **}{@code /src/**}{@code /*.java}
+ * matches {@code src/A.java} and {@code module/src/main/A.java}. {@code *} and {@code ?} do not cross directories,
+ * {@code [abc]}, {@code [!abc]} and {@code {a,b}} are supported as in {@link java.nio.file.FileSystem#getPathMatcher(String)}.
+ * A path matches the set if it matches any include pattern, or there are no include patterns, and does not match any exclude pattern.
+ */
+public class GlobSet {
+    private final List<String> includes;
+    private final List<String> excludes;
+    private final Pattern includeNames;
+    private final Pattern includePaths;
+    private final Pattern excludeNames;
+    private final Pattern excludePaths;
+
+    protected GlobSet(Builder builder) {
+        this.includes = new ArrayList<>(builder.includes);
+        this.excludes = new ArrayList<>(builder.excludes);
+        this.includeNames = compile(includes, false);
+        this.includePaths = compile(includes, true);
+        this.excludeNames = compile(excludes, false);
+        this.excludePaths = compile(excludes, true);
+    }
+
+    public static GlobSet of(String... includes) {
+        return builder().include(includes).build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param relativePath path relative to the root with '/' separators
+     */
+    public boolean matches(String relativePath) {
+        final boolean included = includes.isEmpty()
+                || includeNames != null && includeNames.matcher(fileName(relativePath)).matches()
+                || includePaths != null && includePaths.matcher(relativePath).matches();
+        return included && !isExcluded(relativePath);
+    }
+
+    /**
+     * @param relativePath path relative to the root with '/' separators
+     */
+    public boolean isExcluded(String relativePath) {
+        return excludeNames != null && excludeNames.matcher(fileName(relativePath)).matches()
+                || excludePaths != null && excludePaths.matcher(relativePath).matches();
+    }
+
+    /**
+     * @param relativeDirectory directory relative to the root with '/' separators
+     * @return true if the directory and all its entries are excluded, so it is not worth walking
+     */
+    public boolean isPruned(String relativeDirectory) {
+        return isExcluded(relativeDirectory) || excludePaths != null && excludePaths.matcher(relativeDirectory + '/').matches();
+    }
+
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    private static String fileName(String relativePath) {
+        return relativePath.substring(relativePath.lastIndexOf('/') + 1);
+    }
+
+    private static Pattern compile(List<String> globs, boolean paths) {
+        final StringBuilder regex = new StringBuilder();
+        for (String glob : globs) {
+            final String pattern = glob.startsWith("/") ? glob.substring(1) : glob;
+            if ((glob.indexOf('/') >= 0) == paths) {
+                if (regex.length() > 0) {
+                    regex.append('|');
+                }
+                regex.append("(?:").append(toRegex(pattern)).append(')');
+            }
+        }
+        return regex.length() == 0 ? null : Pattern.compile(regex.toString());
+    }
+
+    /**
+     * Translates a globbing pattern to a regular expression
+     */
+    static String toRegex(String glob) {
+        final StringBuilder regex = new StringBuilder();
+        int groups = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            final char c = glob.charAt(i);
+            switch (c) {
+                case '*':
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        if (i + 2 < glob.length() && glob.charAt(i + 2) == '/') {
+                            regex.append("(?:.*/)?");
+                            i += 2;
+                        } else {
+                            regex.append(".*");
+                            i++;
+                        }
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                case '[':
+                    regex.append('[');
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '!') {
+                        regex.append('^');
+                        i++;
+                    }
+                    while (++i < glob.length() && glob.charAt(i) != ']') {
+                        final char classChar = glob.charAt(i);
+                        if (classChar == '[' || classChar == '\\' || classChar == '&' || classChar == '^') {
+                            regex.append('\\');
+                        }
+                        regex.append(classChar);
+                    }
+                    if (i >= glob.length()) {
+                        throw new IllegalArgumentException("Missing ']' in glob: " + glob);
+                    }
+                    regex.append(']');
+                    break;
+                case '{':
+                    regex.append("(?:");
+                    groups++;
+                    break;
+                case '}':
+                    if (groups == 0) {
+                        throw new IllegalArgumentException("Unexpected '}' in glob: " + glob);
+                    }
+                    regex.append(')');
+                    groups--;
+                    break;
+                case ',':
+                    regex.append(groups > 0 ? "|" : ",");
+                    break;
+                case '\\':
+                    if (++i >= glob.length()) {
+                        throw new IllegalArgumentException("Missing escaped character in glob: " + glob);
+                    }
+                    appendLiteral(regex, glob.charAt(i));
+                    break;
+                default:
+                    appendLiteral(regex, c);
+            }
+        }
+        if (groups > 0) {
+            throw new IllegalArgumentException("Missing '}' in glob: " + glob);
+        }
+        return regex.toString();
+    }
+
+    private static void appendLiteral(StringBuilder regex, char c) {
+        if (".^$+()|{}[]\\*?".indexOf(c) >= 0) {
+            regex.append('\\');
+        }
+        regex.append(c);
+    }
+
+    @Override
+    public String toString() {
+        return "GlobSet{" +
+                "includes=" + includes +
+                ", excludes=" + excludes +
+                '}';
+    }
+
+    public static class Builder {
+        private final List<String> includes = new ArrayList<>();
+        private final List<String> excludes = new ArrayList<>();
+
+        protected Builder() {
+        }
+
+        public Builder include(String... globs) {
+            includes.addAll(Arrays.asList(globs));
+            return this;
+        }
+
+        public Builder exclude(String... globs) {
+            excludes.addAll(Arrays.asList(globs));
+            return this;
+        }
+
+        public GlobSet build() {
+            return new GlobSet(this);
+        }
+    }
+}
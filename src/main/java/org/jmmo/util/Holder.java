@@ -5,7 +5,8 @@ import java.util.Objects;
 import java.util.Optional;
 
 /**
- * Mutable holder to make possible have a side effect inside lambdas
+ * Mutable holder to make possible have a side effect inside lambdas.
+ * It is not thread safe, use {@link ConcurrentHolder} in parallel streams.
  * @param <T> type of a value that the holder holds
  */
 public class Holder<T> implements Serializable {
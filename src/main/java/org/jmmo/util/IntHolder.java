@@ -0,0 +1,82 @@
+package org.jmmo.util;
+
+import java.io.Serializable;
+import java.util.OptionalInt;
+
+/**
+ * Mutable int holder to make possible have a side effect inside lambdas without boxing.
+ * It is not thread safe, use {@link ConcurrentIntHolder} in parallel streams.
+ */
+public class IntHolder implements Serializable {
+    private static final long serialVersionUID = 7611024473935102921L;
+
+    private int value;
+    private boolean present;
+
+    public IntHolder() {
+    }
+
+    public IntHolder(int value) {
+        setValue(value);
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public void setValue(int value) {
+        this.value = value;
+        this.present = true;
+    }
+
+    public void add(int delta) {
+        setValue(value + delta);
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * @return true if a value was set
+     */
+    public boolean isPresent() {
+        return present;
+    }
+
+    public void clear() {
+        value = 0;
+        present = false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        IntHolder holder = (IntHolder) o;
+        return present == holder.present && Integer.compare(value, holder.value) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return present ? Integer.hashCode(value) : -1;
+    }
+
+    /**
+     * @return the value or empty if it was not set
+     */
+    public OptionalInt toOptional() {
+        return present ? OptionalInt.of(value) : OptionalInt.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "IntHolder{" +
+                "value=" + (present ? String.valueOf(value) : "empty") +
+                '}';
+    }
+}
@@ -0,0 +1,229 @@
+package org.jmmo.util;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterator pipeline which fuses map, filter and flatMap stages into a single push-style chain of consumers
+ * instead of nesting an iterator per stage like {@link StreamUtil#iteratorMap}, {@link StreamUtil#iteratorFilter}
+ * and {@link StreamUtil#iteratorFlatMap} do.
+ * {@link #forEach(Consumer)} pushes the whole source through the chain by {@link Iterator#forEachRemaining(Consumer)}.
+ * {@link #iterator()} and {@link #spliterator()} pull one element at a time: map, filter and peek stages between flatMaps
+ * stay fused, a flatMap stage keeps its current inner iterator and pulls from it lazily, so inner iterators may be infinite.
+ * A pipeline is a builder, every stage returns a new pipeline over the same source, so only one of them should be traversed.
+ * @param <T> type of elements
+ */
+public class Iterators<T> {
+    private final Iterator<Object> source;
+    private final Function<Consumer<? super T>, Consumer<Object>> stages;
+    private final Supplier<Iterator<Object>> segmentSource;
+    private final Function<Consumer<? super T>, Consumer<Object>> segmentStages;
+
+    /**
+     * @param stages all stages pushing from the source
+     * @param segmentSource elements pulled from the source through the stages up to the last flatMap
+     * @param segmentStages stages after the last flatMap, they push at most one element for an input one
+     */
+    protected Iterators(Iterator<Object> source, Function<Consumer<? super T>, Consumer<Object>> stages,
+                        Supplier<Iterator<Object>> segmentSource, Function<Consumer<? super T>, Consumer<Object>> segmentStages) {
+        this.source = source;
+        this.stages = stages;
+        this.segmentSource = segmentSource;
+        this.segmentStages = segmentStages;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Iterators<T> from(Iterator<? extends T> iterator) {
+        final Iterator<Object> source = (Iterator<Object>) iterator;
+        return new Iterators<>(source, downstream -> (Consumer<Object>) downstream, () -> source, downstream -> (Consumer<Object>) downstream);
+    }
+
+    public static <T> Iterators<T> from(Iterable<? extends T> iterable) {
+        return from(iterable.iterator());
+    }
+
+    public <R> Iterators<R> map(Function<? super T, ? extends R> mapper) {
+        return stage(downstream -> element -> downstream.accept(mapper.apply(element)));
+    }
+
+    public Iterators<T> filter(Predicate<? super T> predicate) {
+        return stage(downstream -> element -> {
+            if (predicate.test(element)) {
+                downstream.accept(element);
+            }
+        });
+    }
+
+    public <R> Iterators<R> flatMap(Function<? super T, ? extends Iterator<? extends R>> mapper) {
+        final Supplier<Iterator<Object>> upstream = segmentSource;
+        final Function<Consumer<? super T>, Consumer<Object>> upstreamStages = segmentStages;
+        return new Iterators<>(source, downstream -> stages.apply(element -> mapper.apply(element).forEachRemaining(downstream)),
+                () -> new FlatMapIterator<>(new SegmentIterator<>(upstream.get(), upstreamStages), mapper),
+                downstream -> (Consumer<Object>) downstream);
+    }
+
+    public Iterators<T> peek(Consumer<? super T> action) {
+        return stage(downstream -> element -> {
+            action.accept(element);
+            downstream.accept(element);
+        });
+    }
+
+    /**
+     * @param stage makes a consumer of this pipeline elements pushing at most one element to the downstream one
+     */
+    private <R> Iterators<R> stage(Function<Consumer<? super R>, Consumer<T>> stage) {
+        return new Iterators<>(source, downstream -> stages.apply(stage.apply(downstream)),
+                segmentSource, downstream -> segmentStages.apply(stage.apply(downstream)));
+    }
+
+    /**
+     * Pushes all remaining source elements through the stages to the action
+     */
+    public void forEach(Consumer<? super T> action) {
+        source.forEachRemaining(stages.apply(action));
+    }
+
+    public Iterator<T> iterator() {
+        return new SegmentIterator<>(segmentSource.get(), segmentStages);
+    }
+
+    public Spliterator<T> spliterator() {
+        final Iterator<T> iterator = iterator();
+        return new Spliterator<T>() {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (!iterator.hasNext()) {
+                    return false;
+                }
+                action.accept(iterator.next());
+                return true;
+            }
+
+            @Override
+            public void forEachRemaining(Consumer<? super T> action) {
+                iterator.forEachRemaining(action);
+            }
+
+            @Override
+            public Spliterator<T> trySplit() {
+                return null;
+            }
+
+            @Override
+            public long estimateSize() {
+                return Long.MAX_VALUE;
+            }
+
+            @Override
+            public int characteristics() {
+                return ORDERED;
+            }
+        };
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Pulls source elements through fused stages which push at most one element for an input one
+     */
+    static class SegmentIterator<T> implements Iterator<T>, Consumer<T> {
+        private final Iterator<Object> source;
+        private final Function<Consumer<? super T>, Consumer<Object>> stages;
+        private final Consumer<Object> sink;
+        private T element;
+        private boolean filled;
+
+        SegmentIterator(Iterator<Object> source, Function<Consumer<? super T>, Consumer<Object>> stages) {
+            this.source = source;
+            this.stages = stages;
+            this.sink = stages.apply(this);
+        }
+
+        @Override
+        public void accept(T element) {
+            this.element = element;
+            filled = true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!filled) {
+                if (!source.hasNext()) {
+                    return false;
+                }
+                sink.accept(source.next());
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final T result = element;
+            element = null;
+            filled = false;
+            return result;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (filled) {
+                action.accept(next());
+            }
+            source.forEachRemaining(stages.apply(action));
+        }
+    }
+
+    /**
+     * Pulls elements of the inner iterators one at a time, the remaining ones are pushed by forEachRemaining
+     */
+    static class FlatMapIterator<T, R> implements Iterator<Object> {
+        private final Iterator<T> upstream;
+        private final Function<? super T, ? extends Iterator<? extends R>> mapper;
+        private Iterator<? extends R> current = Collections.emptyIterator();
+
+        FlatMapIterator(Iterator<T> upstream, Function<? super T, ? extends Iterator<? extends R>> mapper) {
+            this.upstream = upstream;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (!upstream.hasNext()) {
+                    return false;
+                }
+                current = mapper.apply(upstream.next());
+            }
+            return true;
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Object> action) {
+            current.forEachRemaining(action);
+            current = Collections.emptyIterator();
+            upstream.forEachRemaining(element -> mapper.apply(element).forEachRemaining(action));
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package org.jmmo.util;
 
+import org.jmmo.util.impl.MemoizedToString;
+
+import java.time.Duration;
 import java.util.function.Supplier;
 
+/**
+ * Calls the supplier on every {@link #toString()}. Use {@link #once(Supplier)} or {@link #builder(Supplier)}
+ * to remember the result and to limit its length.
+ */
 public class LazyToString {
     private final Supplier<?> supplier;
 
@@ -14,7 +21,94 @@ public class LazyToString {
         return String.valueOf(supplier.get());
     }
 
+    protected Supplier<?> getSupplier() {
+        return supplier;
+    }
+
     public static LazyToString of(Supplier<?> supplier) {
         return new LazyToString(supplier);
     }
+
+    /**
+     * @return lazy string that calls the supplier at most once even if it is used by several threads
+     */
+    public static LazyToString once(Supplier<?> supplier) {
+        return builder(supplier).build();
+    }
+
+    public static Builder builder(Supplier<?> supplier) {
+        return new Builder(supplier);
+    }
+
+    public enum Policy {
+        /**
+         * The supplier is called on every {@link #toString()}
+         */
+        ALWAYS,
+        /**
+         * The supplier is called once, concurrent callers wait for the result
+         */
+        ONCE,
+        /**
+         * The supplier is called once by every thread, so it does not need to be thread safe
+         */
+        PER_THREAD,
+        /**
+         * The supplier is called again when the result is older than the given duration
+         */
+        EXPIRING
+    }
+
+    public static class Builder {
+        private final Supplier<?> supplier;
+        private Policy policy = Policy.ONCE;
+        private Duration expiration;
+        private int maxLength = Integer.MAX_VALUE;
+
+        protected Builder(Supplier<?> supplier) {
+            this.supplier = supplier;
+        }
+
+        public Builder always() {
+            this.policy = Policy.ALWAYS;
+            return this;
+        }
+
+        public Builder once() {
+            this.policy = Policy.ONCE;
+            return this;
+        }
+
+        public Builder perThread() {
+            this.policy = Policy.PER_THREAD;
+            return this;
+        }
+
+        public Builder expireAfter(Duration expiration) {
+            if (expiration.isNegative()) {
+                throw new IllegalArgumentException("Expiration must not be negative: " + expiration);
+            }
+            this.policy = Policy.EXPIRING;
+            this.expiration = expiration;
+            return this;
+        }
+
+        /**
+         * Longer strings are truncated to the given length and marked with the original length
+         */
+        public Builder maxLength(int maxLength) {
+            if (maxLength < 0) {
+                throw new IllegalArgumentException("Max length must not be negative: " + maxLength);
+            }
+            this.maxLength = maxLength;
+            return this;
+        }
+
+        public LazyToString build() {
+            if (policy == Policy.ALWAYS && maxLength == Integer.MAX_VALUE) {
+                return new LazyToString(supplier);
+            }
+            return new MemoizedToString(supplier, policy, expiration == null ? 0 : expiration.toNanos(), maxLength);
+        }
+    }
 }
@@ -0,0 +1,82 @@
+package org.jmmo.util;
+
+import java.io.Serializable;
+import java.util.OptionalLong;
+
+/**
+ * Mutable long holder to make possible have a side effect inside lambdas without boxing.
+ * It is not thread safe, use {@link ConcurrentLongHolder} in parallel streams.
+ */
+public class LongHolder implements Serializable {
+    private static final long serialVersionUID = -3217843621466911204L;
+
+    private long value;
+    private boolean present;
+
+    public LongHolder() {
+    }
+
+    public LongHolder(long value) {
+        setValue(value);
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public void setValue(long value) {
+        this.value = value;
+        this.present = true;
+    }
+
+    public void add(long delta) {
+        setValue(value + delta);
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * @return true if a value was set
+     */
+    public boolean isPresent() {
+        return present;
+    }
+
+    public void clear() {
+        value = 0;
+        present = false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        LongHolder holder = (LongHolder) o;
+        return present == holder.present && Long.compare(value, holder.value) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return present ? Long.hashCode(value) : -1;
+    }
+
+    /**
+     * @return the value or empty if it was not set
+     */
+    public OptionalLong toOptional() {
+        return present ? OptionalLong.of(value) : OptionalLong.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "LongHolder{" +
+                "value=" + (present ? String.valueOf(value) : "empty") +
+                '}';
+    }
+}
@@ -0,0 +1,12 @@
+package org.jmmo.util;
+
+import java.util.regex.MatchResult;
+
+/**
+ * Consumer of regular expression matches.
+ * The match is the matcher itself, so it is valid only inside the call and must not be kept.
+ */
+@FunctionalInterface
+public interface MatchConsumer {
+    void accept(MatchResult match);
+}
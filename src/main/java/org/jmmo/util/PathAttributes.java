@@ -0,0 +1,52 @@
+package org.jmmo.util;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+/**
+ * Path with its basic attributes read once during a directory walk
+ */
+public class PathAttributes {
+    private final Path path;
+    private final BasicFileAttributes attributes;
+
+    public PathAttributes(Path path, BasicFileAttributes attributes) {
+        this.path = path;
+        this.attributes = attributes;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public BasicFileAttributes getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PathAttributes that = (PathAttributes) o;
+        return Objects.equals(path, that.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(path);
+    }
+
+    @Override
+    public String toString() {
+        return "PathAttributes{" +
+                "path=" + path +
+                ", size=" + attributes.size() +
+                ", lastModifiedTime=" + attributes.lastModifiedTime() +
+                '}';
+    }
+}
@@ -0,0 +1,69 @@
+package org.jmmo.util;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+/**
+ * Change of a file or directory found by comparing a directory tree with its snapshot
+ */
+public class PathChange {
+    public enum Type { ADDED, MODIFIED, DELETED }
+
+    private final Type type;
+    private final Path path;
+    private final boolean directory;
+    private final BasicFileAttributes attributes;
+
+    public PathChange(Type type, Path path, boolean directory, BasicFileAttributes attributes) {
+        this.type = type;
+        this.path = path;
+        this.directory = directory;
+        this.attributes = attributes;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return current attributes or null if the path was deleted
+     */
+    public BasicFileAttributes getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PathChange that = (PathChange) o;
+        return type == that.type && directory == that.directory && Objects.equals(path, that.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, path, directory);
+    }
+
+    @Override
+    public String toString() {
+        return "PathChange{" +
+                "type=" + type +
+                ", path=" + path +
+                ", directory=" + directory +
+                '}';
+    }
+}
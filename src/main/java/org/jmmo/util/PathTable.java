@@ -0,0 +1,414 @@
+package org.jmmo.util;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Compact set of paths, like results of a big directory walk. Paths are stored as a trie of name segments
+ * with parent pointers in primitive arrays, every distinct name is stored once as UTF-8 bytes,
+ * so a path takes a few ints instead of a Path object with its full string.
+ * Paths are materialized lazily when they are iterated. Paths are returned in the order they were added.
+ * All the paths must belong to the same file system. The table is not thread safe, use {@link #collector()} in parallel streams.
+ */
+public class PathTable implements Iterable<Path> {
+    private static final int NONE = -1;
+
+    private FileSystem fileSystem;
+
+    private byte[] bytes = new byte[1024];
+    private int bytesSize;
+    private int[] segmentOffsets = new int[65];
+    private int segmentCount;
+    private int[] segmentIndex = new int[128];
+
+    private int[] parents = new int[64];
+    private int[] names = new int[64];
+    private int nodeCount;
+    private int[] nodeIndex = new int[128];
+
+    private int[] members = new int[64];
+    private int memberCount;
+    private long[] memberBits = new long[1];
+
+    /**
+     * @return collector of paths into a table, tables of parallel streams are merged
+     */
+    public static Collector<Path, ?, PathTable> collector() {
+        return Collector.of(PathTable::new, PathTable::add, (first, second) -> {
+            first.addAll(second);
+            return first;
+        });
+    }
+
+    /**
+     * @return true if the path was not in the table
+     */
+    public boolean add(Path path) {
+        if (fileSystem == null) {
+            fileSystem = path.getFileSystem();
+        } else if (fileSystem != path.getFileSystem()) {
+            throw new IllegalArgumentException("Path of another file system: " + path);
+        }
+
+        int node = NONE;
+        final Path root = path.getRoot();
+        if (root != null) {
+            node = node(node, intern(root.toString()));
+        }
+        for (int i = 0, n = path.getNameCount(); i < n; i++) {
+            node = node(node, intern(path.getName(i).toString()));
+        }
+        if (node == NONE) {
+            throw new IllegalArgumentException("Empty path");
+        }
+        return addMember(node);
+    }
+
+    /**
+     * Adds the paths of the other table without creating them, its segments and nodes are mapped to the ones of this table
+     */
+    public void addAll(PathTable other) {
+        if (other == this || other.memberCount == 0) {
+            return;
+        }
+        if (fileSystem == null) {
+            fileSystem = other.fileSystem;
+        } else if (fileSystem != other.fileSystem) {
+            throw new IllegalArgumentException("Paths of another file system: " + other.fileSystem);
+        }
+
+        final int[] segmentMap = new int[other.segmentCount];
+        for (int segment = 0; segment < other.segmentCount; segment++) {
+            final int offset = other.segmentOffsets[segment];
+            segmentMap[segment] = intern(other.bytes, offset, other.segmentOffsets[segment + 1] - offset);
+        }
+        // a parent node is always created before its children
+        final int[] nodeMap = new int[other.nodeCount];
+        for (int node = 0; node < other.nodeCount; node++) {
+            final int parent = other.parents[node];
+            nodeMap[node] = node(parent == NONE ? NONE : nodeMap[parent], segmentMap[other.names[node]]);
+        }
+        for (int i = 0; i < other.memberCount; i++) {
+            addMember(nodeMap[other.members[i]]);
+        }
+    }
+
+    public boolean contains(Path path) {
+        if (fileSystem != path.getFileSystem()) {
+            return false;
+        }
+        int node = NONE;
+        final Path root = path.getRoot();
+        if (root != null && (node = findNode(node, findSegment(root.toString()))) == NONE) {
+            return false;
+        }
+        for (int i = 0, n = path.getNameCount(); i < n; i++) {
+            if ((node = findNode(node, findSegment(path.getName(i).toString()))) == NONE) {
+                return false;
+            }
+        }
+        return node != NONE && isMember(node);
+    }
+
+    public int size() {
+        return memberCount;
+    }
+
+    public boolean isEmpty() {
+        return memberCount == 0;
+    }
+
+    /**
+     * @return path added with the given index, the path is created on every call
+     */
+    public Path get(int index) {
+        if (index < 0 || index >= memberCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + memberCount);
+        }
+        return path(members[index]);
+    }
+
+    /**
+     * @return number of distinct name segments stored
+     */
+    public int segmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * @return number of trie nodes, that is paths and their distinct ancestors
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public Iterator<Path> iterator() {
+        return new Iterator<Path>() {
+            int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < memberCount;
+            }
+
+            @Override
+            public Path next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return path(members[index++]);
+            }
+        };
+    }
+
+    @Override
+    public void forEach(Consumer<? super Path> action) {
+        for (int i = 0; i < memberCount; i++) {
+            action.accept(path(members[i]));
+        }
+    }
+
+    @Override
+    public Spliterator<Path> spliterator() {
+        return new TableSpliterator(0, memberCount);
+    }
+
+    /**
+     * @return stream of the paths created lazily, the table must not be modified while it is streamed
+     */
+    public Stream<Path> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    @Override
+    public String toString() {
+        return "PathTable{" +
+                "size=" + memberCount +
+                ", nodes=" + nodeCount +
+                ", segments=" + segmentCount +
+                '}';
+    }
+
+    private boolean addMember(int node) {
+        if (isMember(node)) {
+            return false;
+        }
+        if (memberCount == members.length) {
+            members = Arrays.copyOf(members, grow(members.length));
+        }
+        members[memberCount++] = node;
+        memberBits[node >>> 6] |= 1L << node;
+        return true;
+    }
+
+    private boolean isMember(int node) {
+        return node >>> 6 < memberBits.length && (memberBits[node >>> 6] & 1L << node) != 0;
+    }
+
+    private Path path(int node) {
+        int depth = 0;
+        for (int current = node; current != NONE; current = parents[current]) {
+            depth++;
+        }
+        final String[] segments = new String[depth];
+        for (int current = node; current != NONE; current = parents[current]) {
+            segments[--depth] = segment(names[current]);
+        }
+        return fileSystem.getPath(segments[0], Arrays.copyOfRange(segments, 1, segments.length));
+    }
+
+    private int node(int parent, int name) {
+        final int mask = nodeIndex.length - 1;
+        int slot = hash(parent, name) & mask;
+        for (int entry; (entry = nodeIndex[slot]) != 0; slot = (slot + 1) & mask) {
+            if (parents[entry - 1] == parent && names[entry - 1] == name) {
+                return entry - 1;
+            }
+        }
+
+        if (nodeCount == parents.length) {
+            parents = Arrays.copyOf(parents, grow(parents.length));
+            names = Arrays.copyOf(names, parents.length);
+        }
+        final int node = nodeCount++;
+        parents[node] = parent;
+        names[node] = name;
+        nodeIndex[slot] = node + 1;
+        if ((node >>> 6) >= memberBits.length) {
+            memberBits = Arrays.copyOf(memberBits, Math.max(memberBits.length * 2, (node >>> 6) + 1));
+        }
+        if (nodeCount * 2 > nodeIndex.length) {
+            rehashNodes();
+        }
+        return node;
+    }
+
+    private int findNode(int parent, int name) {
+        if (name == NONE) {
+            return NONE;
+        }
+        final int mask = nodeIndex.length - 1;
+        for (int slot = hash(parent, name) & mask, entry; (entry = nodeIndex[slot]) != 0; slot = (slot + 1) & mask) {
+            if (parents[entry - 1] == parent && names[entry - 1] == name) {
+                return entry - 1;
+            }
+        }
+        return NONE;
+    }
+
+    private void rehashNodes() {
+        nodeIndex = new int[nodeIndex.length * 2];
+        final int mask = nodeIndex.length - 1;
+        for (int node = 0; node < nodeCount; node++) {
+            int slot = hash(parents[node], names[node]) & mask;
+            while (nodeIndex[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            nodeIndex[slot] = node + 1;
+        }
+    }
+
+    private int intern(String name) {
+        final byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        return intern(encoded, 0, encoded.length);
+    }
+
+    private int intern(byte[] encoded, int offset, int length) {
+        final int mask = segmentIndex.length - 1;
+        int slot = hash(encoded, offset, length) & mask;
+        for (int entry; (entry = segmentIndex[slot]) != 0; slot = (slot + 1) & mask) {
+            if (segmentEquals(entry - 1, encoded, offset, length)) {
+                return entry - 1;
+            }
+        }
+
+        while (bytesSize + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, grow(bytes.length));
+        }
+        System.arraycopy(encoded, offset, bytes, bytesSize, length);
+        bytesSize += length;
+        if (segmentCount + 1 == segmentOffsets.length) {
+            segmentOffsets = Arrays.copyOf(segmentOffsets, grow(segmentOffsets.length));
+        }
+        final int segment = segmentCount++;
+        segmentOffsets[segmentCount] = bytesSize;
+        segmentIndex[slot] = segment + 1;
+        if (segmentCount * 2 > segmentIndex.length) {
+            rehashSegments();
+        }
+        return segment;
+    }
+
+    private int findSegment(String name) {
+        final byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        final int mask = segmentIndex.length - 1;
+        for (int slot = hash(encoded, 0, encoded.length) & mask, entry; (entry = segmentIndex[slot]) != 0; slot = (slot + 1) & mask) {
+            if (segmentEquals(entry - 1, encoded, 0, encoded.length)) {
+                return entry - 1;
+            }
+        }
+        return NONE;
+    }
+
+    private boolean segmentEquals(int segment, byte[] encoded, int offset, int length) {
+        final int start = segmentOffsets[segment];
+        if (segmentOffsets[segment + 1] - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[start + i] != encoded[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehashSegments() {
+        segmentIndex = new int[segmentIndex.length * 2];
+        final int mask = segmentIndex.length - 1;
+        for (int segment = 0; segment < segmentCount; segment++) {
+            final int offset = segmentOffsets[segment];
+            int slot = hash(bytes, offset, segmentOffsets[segment + 1] - offset) & mask;
+            while (segmentIndex[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            segmentIndex[slot] = segment + 1;
+        }
+    }
+
+    private String segment(int segment) {
+        final int offset = segmentOffsets[segment];
+        return new String(bytes, offset, segmentOffsets[segment + 1] - offset, StandardCharsets.UTF_8);
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return mix(hash);
+    }
+
+    private static int hash(int parent, int name) {
+        return mix(parent * 31 + name);
+    }
+
+    private static int mix(int hash) {
+        final int mixed = hash * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    private static int grow(int length) {
+        return length + (length >> 1) + 1;
+    }
+
+    class TableSpliterator implements Spliterator<Path> {
+        private int index;
+        private final int end;
+
+        TableSpliterator(int index, int end) {
+            this.index = index;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Path> action) {
+            if (index < end) {
+                action.accept(path(members[index++]));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<Path> trySplit() {
+            final int middle = (index + end) >>> 1;
+            if (middle <= index) {
+                return null;
+            }
+            final Spliterator<Path> prefix = new TableSpliterator(index, middle);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.jmmo.util;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+/**
+ * Policy of {@link StreamUtil#retrying(java.util.concurrent.Callable, RetryPolicy)}. Use {@link #builder()} to create it.
+ * The delay before the attempt {@code n + 1} is {@code initialDelay * multiplier^(n - 1)} limited by {@code maxDelay},
+ * then it is reduced by a random part of at most {@code jitter} of it, so concurrent callers do not retry in lockstep.
+ */
+public class RetryPolicy {
+    public static final RetryPolicy DEFAULT = builder().build();
+
+    private final int maxAttempts;
+    private final long initialDelayNanos;
+    private final long maxDelayNanos;
+    private final double multiplier;
+    private final double jitter;
+    private final Predicate<? super Exception> retryOn;
+
+    protected RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialDelayNanos = builder.initialDelay.toNanos();
+        this.maxDelayNanos = builder.maxDelay.toNanos();
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.retryOn = builder.retryOn;
+    }
+
+    /**
+     * @return maximum number of calls including the first one
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public Duration getInitialDelay() {
+        return Duration.ofNanos(initialDelayNanos);
+    }
+
+    public Duration getMaxDelay() {
+        return Duration.ofNanos(maxDelayNanos);
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * @return part of the delay from 0 to 1 that is randomly subtracted from it
+     */
+    public double getJitter() {
+        return jitter;
+    }
+
+    /**
+     * @return predicate of exceptions which are worth to retry, the others are thrown at once
+     */
+    public Predicate<? super Exception> getRetryOn() {
+        return retryOn;
+    }
+
+    /**
+     * @param attempt number of the failed attempt starting from 1
+     * @param random random number from 0 inclusive to 1 exclusive
+     * @return delay before the next attempt in nanoseconds
+     */
+    public long delayNanos(int attempt, double random) {
+        final double delay = Math.min(maxDelayNanos, initialDelayNanos * Math.pow(multiplier, attempt - 1));
+        return (long) (delay * (1 - jitter * random));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "maxAttempts=" + maxAttempts +
+                ", initialDelay=" + getInitialDelay() +
+                ", maxDelay=" + getMaxDelay() +
+                ", multiplier=" + multiplier +
+                ", jitter=" + jitter +
+                ", retryOn=" + retryOn +
+                '}';
+    }
+
+    public static class Builder {
+        private int maxAttempts = 3;
+        private Duration initialDelay = Duration.ofMillis(100);
+        private Duration maxDelay = Duration.ofSeconds(10);
+        private double multiplier = 2;
+        private double jitter = 0.5;
+        private Predicate<? super Exception> retryOn = e -> !(e instanceof InterruptedException);
+
+        protected Builder() {
+        }
+
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("Max attempts must be positive: " + maxAttempts);
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder initialDelay(Duration initialDelay) {
+            if (initialDelay.isNegative()) {
+                throw new IllegalArgumentException("Initial delay must not be negative: " + initialDelay);
+            }
+            this.initialDelay = initialDelay;
+            return this;
+        }
+
+        public Builder maxDelay(Duration maxDelay) {
+            if (maxDelay.isNegative()) {
+                throw new IllegalArgumentException("Max delay must not be negative: " + maxDelay);
+            }
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        public Builder multiplier(double multiplier) {
+            if (!(multiplier >= 1)) {
+                throw new IllegalArgumentException("Multiplier must not be less than 1: " + multiplier);
+            }
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        public Builder jitter(double jitter) {
+            if (!(jitter >= 0 && jitter <= 1)) {
+                throw new IllegalArgumentException("Jitter must be from 0 to 1: " + jitter);
+            }
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * InterruptedException is not retried by default, neither it is retried by a custom predicate
+         */
+        public Builder retryOn(Predicate<? super Exception> retryOn) {
+            this.retryOn = retryOn;
+            return this;
+        }
+
+        public Builder retryOn(Class<? extends Exception> type) {
+            return retryOn(type::isInstance);
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -1,22 +1,77 @@
 package org.jmmo.util;
 
+import org.jmmo.util.impl.AdjacentSpliterator;
+import org.jmmo.util.impl.AttributesIterator;
+import org.jmmo.util.impl.BatchSpliterator;
+import org.jmmo.util.impl.CancelableSpliterator;
+import org.jmmo.util.impl.CausesIterator;
+import org.jmmo.util.impl.ChangesIterator;
+import org.jmmo.util.impl.CloseableIterator;
+import org.jmmo.util.impl.ConcurrentMapIterator;
+import org.jmmo.util.impl.DefaultExecutor;
+import org.jmmo.util.impl.DropWhileSpliterator;
 import org.jmmo.util.impl.FilesIterator;
+import org.jmmo.util.impl.FilesSpliterator;
+import org.jmmo.util.impl.IteratorSpliterator;
+import org.jmmo.util.impl.MappedBytesSpliterator;
+import org.jmmo.util.impl.MappedLinesSpliterator;
+import org.jmmo.util.impl.MatchSpliterator;
+import org.jmmo.util.impl.PrefetchFilesIterator;
+import org.jmmo.util.impl.RandomAccessSpliterator;
+import org.jmmo.util.impl.SlidingSpliterator;
+import org.jmmo.util.impl.SortedFilesSpliterator;
+import org.jmmo.util.impl.TakeWhileSpliterator;
+import org.jmmo.util.impl.WalkRoot;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleSupplier;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 public class StreamUtil {
+    /**
+     * Number of elements split off from iterator based streams of known size
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
     private StreamUtil() {}
 
     @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
@@ -36,6 +91,62 @@ public class StreamUtil {
         return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, characteristics), false);
     }
 
+    /**
+     * Creates sized stream from the iterator which returns exactly the given number of elements.
+     * The stream is split in parallel by batches of {@link #DEFAULT_BATCH_SIZE} elements.
+     */
+    public static <T> Stream<T> fromIterator(Iterator<T> iterator, long size, int characteristics) {
+        return fromIterator(iterator, size, DEFAULT_BATCH_SIZE, characteristics | Spliterator.SIZED);
+    }
+
+    /**
+     * Creates stream from the iterator which is split in parallel by batches of the given size
+     * @param estimate estimated number of elements or Long.MAX_VALUE if unknown,
+     *                 it is the exact size if characteristics have {@link Spliterator#SIZED}
+     * @param batchSize number of elements to split off
+     */
+    public static <T> Stream<T> fromIterator(Iterator<T> iterator, long estimate, int batchSize, int characteristics) {
+        return StreamSupport.stream(new IteratorSpliterator<>(iterator, estimate, batchSize, characteristics), false);
+    }
+
+    /**
+     * Creates stream from the iterable using the best available spliterator:
+     * random access lists are split by indexes, other collections are sized
+     */
+    public static <T> Stream<T> fromIterable(Iterable<T> iterable) {
+        if (iterable instanceof List && iterable instanceof RandomAccess) {
+            return StreamSupport.stream(new RandomAccessSpliterator<>((List<T>) iterable), false);
+        }
+        if (iterable instanceof Collection) {
+            return ((Collection<T>) iterable).stream();
+        }
+        return StreamSupport.stream(iterable.spliterator(), false);
+    }
+
+    public static IntStream fromIterator(PrimitiveIterator.OfInt iterator) {
+        return fromIterator(iterator, 0);
+    }
+
+    public static IntStream fromIterator(PrimitiveIterator.OfInt iterator, int characteristics) {
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(iterator, characteristics), false);
+    }
+
+    public static LongStream fromIterator(PrimitiveIterator.OfLong iterator) {
+        return fromIterator(iterator, 0);
+    }
+
+    public static LongStream fromIterator(PrimitiveIterator.OfLong iterator, int characteristics) {
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(iterator, characteristics), false);
+    }
+
+    public static DoubleStream fromIterator(PrimitiveIterator.OfDouble iterator) {
+        return fromIterator(iterator, 0);
+    }
+
+    public static DoubleStream fromIterator(PrimitiveIterator.OfDouble iterator, int characteristics) {
+        return StreamSupport.doubleStream(Spliterators.spliteratorUnknownSize(iterator, characteristics), false);
+    }
+
     public static <T> Stream<T> supply(Supplier<T> supplier) {
         return fromIterator(new Iterator<T>() {
             boolean prepared;
@@ -74,92 +185,609 @@ public class StreamUtil {
         return supply(() -> matcher.find() ? matcher.group(group) : null);
     }
 
-    public static Stream<Throwable> causes(Throwable throwable) {
-        return supply(new Supplier<Throwable>() {
-            Throwable next = throwable;
-
-            @Override
-            public Throwable get() {
-                final Throwable current = next;
-                if (current != null) {
-                    next = current.getCause();
-                }
-                return current;
-            }
-        });
+    /**
+     * Creates int stream from the supplier which is called while hasNext returns true
+     * @param hasNext returns false when there are no more values
+     * @param supplier supplies the next value
+     */
+    public static IntStream supplyInt(BooleanSupplier hasNext, IntSupplier supplier) {
+        return fromIterator(new PrimitiveIterator.OfInt() {
+            boolean prepared;
+            boolean hasCurrent;
+
+            @Override
+            public boolean hasNext() {
+                if (!prepared) {
+                    prepared = true;
+                    hasCurrent = hasNext.getAsBoolean();
+                }
+                return hasCurrent;
+            }
+
+            @Override
+            public int nextInt() {
+                if (hasNext()) {
+                    prepared = false;
+                    return supplier.getAsInt();
+                } else {
+                    throw new NoSuchElementException();
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates long stream from the supplier which is called while hasNext returns true
+     * @param hasNext returns false when there are no more values
+     * @param supplier supplies the next value
+     */
+    public static LongStream supplyLong(BooleanSupplier hasNext, LongSupplier supplier) {
+        return fromIterator(new PrimitiveIterator.OfLong() {
+            boolean prepared;
+            boolean hasCurrent;
+
+            @Override
+            public boolean hasNext() {
+                if (!prepared) {
+                    prepared = true;
+                    hasCurrent = hasNext.getAsBoolean();
+                }
+                return hasCurrent;
+            }
+
+            @Override
+            public long nextLong() {
+                if (hasNext()) {
+                    prepared = false;
+                    return supplier.getAsLong();
+                } else {
+                    throw new NoSuchElementException();
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates double stream from the supplier which is called while hasNext returns true
+     * @param hasNext returns false when there are no more values
+     * @param supplier supplies the next value
+     */
+    public static DoubleStream supplyDouble(BooleanSupplier hasNext, DoubleSupplier supplier) {
+        return fromIterator(new PrimitiveIterator.OfDouble() {
+            boolean prepared;
+            boolean hasCurrent;
+
+            @Override
+            public boolean hasNext() {
+                if (!prepared) {
+                    prepared = true;
+                    hasCurrent = hasNext.getAsBoolean();
+                }
+                return hasCurrent;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (hasNext()) {
+                    prepared = false;
+                    return supplier.getAsDouble();
+                } else {
+                    throw new NoSuchElementException();
+                }
+            }
+        });
+    }
+
+    /**
+     * Streams matches without copying them, every match is the matcher itself which is valid only until the next match is requested
+     */
+    public static Stream<MatchResult> matches(Matcher matcher) {
+        return StreamSupport.stream(new MatchSpliterator(matcher), false);
+    }
+
+    /**
+     * Streams matches of the pattern in the input without copying them.
+     * Every match is a matcher which is valid only until the next match is requested.
+     * The stream can be split in parallel at line boundaries, so matches must not span lines.
+     */
+    public static Stream<MatchResult> matches(Pattern pattern, CharSequence input) {
+        return StreamSupport.stream(new MatchSpliterator(pattern, input), false);
+    }
+
+    /**
+     * Passes every match to the consumer without allocations, the match is the matcher itself
+     */
+    public static void forEachMatch(Matcher matcher, MatchConsumer consumer) {
+        while (matcher.find()) {
+            consumer.accept(matcher);
+        }
+    }
+
+    /**
+     * Passes every match of the pattern in the input to the consumer in parallel.
+     * The input is split at line boundaries, so matches must not span lines. The consumer must be thread safe.
+     */
+    public static void forEachMatchParallel(Pattern pattern, CharSequence input, MatchConsumer consumer) {
+        matches(pattern, input).parallel().forEach(consumer::accept);
+    }
+
+    /**
+     * Streams the throwable and its chain of causes. A cause that is already in the chain ends the stream,
+     * so cyclic chains are safe.
+     */
+    public static Stream<Throwable> causes(Throwable throwable) {
+        return fromIterator(new CausesIterator(throwable), Spliterator.NONNULL | Spliterator.DISTINCT);
+    }
+
+    /**
+     * Streams the throwable, its causes and suppressed exceptions depth first, the cause of every throwable goes before its suppressed ones.
+     * Every throwable is streamed once even if it is reachable several times or the graph has cycles.
+     */
+    public static Stream<Throwable> causesAndSuppressed(Throwable throwable) {
+        return causesAndSuppressed(throwable, Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * Streams the throwable, its causes and suppressed exceptions, the cause of every throwable goes before its suppressed ones.
+     * Every throwable is streamed once even if it is reachable several times or the graph has cycles.
+     * @param maxDepth maximum number of steps from the throwable along the shortest path, 0 streams the throwable only
+     * @param breadthFirst true to stream all throwables of a depth before deeper ones, depth first otherwise
+     */
+    public static Stream<Throwable> causesAndSuppressed(Throwable throwable, int maxDepth, boolean breadthFirst) {
+        return fromIterator(new CausesIterator(throwable, true, breadthFirst, maxDepth), Spliterator.NONNULL | Spliterator.DISTINCT);
+    }
+
+    /**
+     * Streams records of a file separated by the given delimiter without copying them.
+     * The file is memory mapped, every record is a read only view of the mapped region that is reused,
+     * so it is valid only until the next record is requested. The stream can be split in parallel at delimiter boundaries.
+     * The stream should be closed to release the file.
+     */
+    public static Stream<ByteBuffer> records(Path file, byte delimiter) {
+        final FileChannel channel = openChannel(file);
+        return StreamSupport.stream(new MappedBytesSpliterator(channel, delimiter, 0, size(channel)), false)
+                .onClose(() -> unchecked(channel::close));
+    }
+
+    /**
+     * Streams lines of a file without copying them.
+     * The file is memory mapped, every line is a char sequence view of the mapped region where bytes are seen as ISO-8859-1 chars.
+     * The view is reused, so it is valid only until the next line is requested. The stream can be split in parallel at line boundaries.
+     * The stream should be closed to release the file.
+     */
+    public static Stream<CharSequence> lines(Path file) {
+        final FileChannel channel = openChannel(file);
+        return StreamSupport.stream(new MappedLinesSpliterator(channel, 0, size(channel)), false)
+                .onClose(() -> unchecked(channel::close));
+    }
+
+    private static FileChannel openChannel(Path file) {
+        try {
+            return FileChannel.open(file, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static long size(FileChannel channel) {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            unchecked(channel::close);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Closing the stream closes the directory stream left open by a walk which was not finished
+     */
+    private static <T> Stream<T> walk(CloseableIterator<T> iterator, int characteristics) {
+        return fromIterator(iterator, characteristics).onClose(iterator::close);
+    }
+
+    private static Stream<Path> walkParallel(FilesSpliterator spliterator) {
+        return StreamSupport.stream(spliterator, true).onClose(spliterator::close);
+    }
+
+    /**
+     * Finds files within a given directory and its subdirectories.
+     */
+    public static Stream<Path> files(Path directory) {
+        return filesWithAttributes(directory).map(PathAttributes::getPath);
+    }
+
+    /**
+     * Finds files within a given directory and its subdirectories.
+     * The files are filtered by matching the String representation of their file names against the given globbing pattern.
+     */
+    public static Stream<Path> files(Path directory, String glob) {
+        return filesWithAttributes(directory, glob).map(PathAttributes::getPath);
+    }
+
+    /**
+     * Finds files within a given directory and its subdirectories.
+     * The files are filtered by the given filter
+     */
+    public static Stream<Path> files(Path directory, DirectoryStream.Filter<Path> filter) {
+        return filesWithAttributes(directory, (path, attributes) -> unchecked(() -> filter.accept(path))).map(PathAttributes::getPath);
+    }
+
+    /**
+     * Finds files within a given directory and its subdirectories according to the walk options.
+     */
+    public static Stream<Path> files(Path directory, WalkOptions options) {
+        return filesWithAttributes(directory, (path, attributes) -> true, options).map(PathAttributes::getPath);
+    }
+
+    /**
+     * Finds files within a given directory and its subdirectories according to the walk options.
+     * The files are filtered by matching the String representation of their file names against the given globbing pattern.
+     */
+    public static Stream<Path> files(Path directory, String glob, WalkOptions options) {
+        final PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+        return filesWithAttributes(directory, (path, attributes) -> matcher.matches(path.getFileName()), options).map(PathAttributes::getPath);
+    }
+
+    /**
+     * Finds files within the given directories and their subdirectories which relative paths match the patterns.
+     * A directory inside another given one is not walked separately, its files are matched relative to both of them.
+     * Directories excluded by the patterns are not walked. Every directory is read once whatever the number of patterns.
+     */
+    public static Stream<Path> files(Collection<Path> roots, GlobSet patterns) {
+        return WalkRoot.of(roots).stream().flatMap(walkRoot -> {
+            final WalkOptions options = WalkOptions.builder().prune(path -> walkRoot.isPruned(path, patterns)).build();
+            return filesWithAttributes(walkRoot.getRoot(), (path, attributes) -> walkRoot.matches(path, patterns), options)
+                    .map(PathAttributes::getPath);
+        });
+    }
+
+    /**
+     * Finds files with their attributes within a given directory and its subdirectories.
+     * Attributes of every entry are read only once.
+     */
+    public static Stream<PathAttributes> filesWithAttributes(Path directory) {
+        return walk(new AttributesIterator(directory, (path, attributes) -> !attributes.isDirectory()), Spliterator.NONNULL);
+    }
+
+    /**
+     * Finds files with their attributes within a given directory and its subdirectories.
+     * The files are filtered by matching the String representation of their file names against the given globbing pattern.
+     */
+    public static Stream<PathAttributes> filesWithAttributes(Path directory, String glob) {
+        final PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+        return filesWithAttributes(directory, (path, attributes) -> matcher.matches(path.getFileName()));
+    }
+
+    /**
+     * Finds files with their attributes within a given directory and its subdirectories.
+     * The files are filtered by the given filter, so it is possible to filter by size or modification time without additional IO.
+     */
+    public static Stream<PathAttributes> filesWithAttributes(Path directory, BiPredicate<Path, BasicFileAttributes> filter) {
+        return filesWithAttributes(directory, filter, WalkOptions.DEFAULT);
+    }
+
+    /**
+     * Finds files with their attributes within a given directory and its subdirectories according to the walk options.
+     * The files are filtered by the given filter.
+     */
+    public static Stream<PathAttributes> filesWithAttributes(Path directory, BiPredicate<Path, BasicFileAttributes> filter, WalkOptions options) {
+        return walk(new AttributesIterator(directory, (path, attributes) -> !attributes.isDirectory() && filter.test(path, attributes), options),
+                Spliterator.NONNULL);
+    }
+
+    /**
+     * Finds files within a given directory and its subdirectories in parallel.
+     * Subdirectories are walked by different fork-join workers.
+     */
+    public static Stream<Path> filesParallel(Path directory) {
+        return walkParallel(new FilesSpliterator(directory)).filter(path -> !Files.isDirectory(path));
+    }
+
+    /**
+     * Finds files within a given directory and its subdirectories in parallel.
+     * The files are filtered by matching the String representation of their file names against the given globbing pattern.
+     */
+    public static Stream<Path> filesParallel(Path directory, String glob) {
+        final PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+        return walkParallel(new FilesSpliterator(directory, path -> Files.isDirectory(path) || matcher.matches(path.getFileName())))
+                .filter(path -> !Files.isDirectory(path));
+    }
+
+    /**
+     * Finds files within a given directory and its subdirectories in parallel.
+     * The files are filtered by the given filter
+     */
+    public static Stream<Path> filesParallel(Path directory, DirectoryStream.Filter<Path> filter) {
+        return walkParallel(new FilesSpliterator(directory, path -> Files.isDirectory(path) || filter.accept(path)))
+                .filter(path -> !Files.isDirectory(path));
+    }
+
+    /**
+     * Finds files within a given directory and its subdirectories.
+     * Up to {@code prefetch} pending directories are read ahead of the consumer by virtual threads on JDK 21+
+     * or by a shared pool of daemon threads otherwise.
+     */
+    public static Stream<Path> filesPrefetched(Path directory, int prefetch) {
+        return filesPrefetched(directory, prefetch, PrefetchFilesIterator.defaultExecutor());
+    }
+
+    /**
+     * Finds files within a given directory and its subdirectories.
+     * Up to {@code prefetch} pending directories are read ahead of the consumer by the given executor.
+     */
+    public static Stream<Path> filesPrefetched(Path directory, int prefetch, Executor executor) {
+        return walk(new PrefetchFilesIterator(directory, path -> true, false, prefetch, executor), Spliterator.NONNULL);
+    }
+
+    /**
+     * Finds files within a given directory and its subdirectories.
+     * The files are filtered by matching the String representation of their file names against the given globbing pattern.
+     * Up to {@code prefetch} pending directories are read ahead of the consumer by the given executor.
+     */
+    public static Stream<Path> filesPrefetched(Path directory, String glob, int prefetch, Executor executor) {
+        final PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+        return walk(new PrefetchFilesIterator(directory, path -> matcher.matches(path.getFileName()),
+                false, prefetch, executor), Spliterator.NONNULL);
+    }
+
+    /**
+     * Finds directories and files within a given directory and its subdirectories.
+     * Up to {@code prefetch} pending directories are read ahead of the consumer by the given executor.
+     */
+    public static Stream<Path> directoriesAndFilesPrefetched(Path directory, int prefetch, Executor executor) {
+        return walk(new PrefetchFilesIterator(directory, path -> true, true, prefetch, executor), Spliterator.NONNULL);
+    }
+
+    /**
+     * Finds directories within a given directory and its subdirectories.
+     */
+    public static Stream<Path> directories(Path directory) {
+        return walk(new FilesIterator(directory, Files::isDirectory), Spliterator.NONNULL);
+    }
+
+    /**
+     * Finds directories within a given directory and its subdirectories.
+     * The files are filtered by matching the String representation of their file names against the given globbing pattern.
+     */
+    public static Stream<Path> directories(Path directory, String glob) {
+        final PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+        return walk(new FilesIterator(directory, path -> Files.isDirectory(path) && matcher.matches(path.getFileName())), Spliterator.NONNULL);
+    }
+
+    /**
+     * Finds directories within a given directory and its subdirectories.
+     * The files are filtered by the given filter
+     */
+    public static Stream<Path> directories(Path directory, DirectoryStream.Filter<Path> filter) {
+        return walk(new FilesIterator(directory, path -> Files.isDirectory(path) && filter.accept(path)), Spliterator.NONNULL);
+    }
+
+    /**
+     * Finds directories within a given directory and its subdirectories according to the walk options.
+     */
+    public static Stream<Path> directories(Path directory, WalkOptions options) {
+        return walk(new AttributesIterator(directory, (path, attributes) -> attributes.isDirectory(), options), Spliterator.NONNULL)
+                .map(PathAttributes::getPath);
+    }
+
+    /**
+     * Finds directories within a given directory and its subdirectories according to the walk options.
+     * The directories are filtered by matching the String representation of their file names against the given globbing pattern,
+     * unlike {@link #directories(Path, String)} the not matching directories are walked too unless they are pruned.
+     */
+    public static Stream<Path> directories(Path directory, String glob, WalkOptions options) {
+        final PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+        return walk(new AttributesIterator(directory, (path, attributes) -> attributes.isDirectory() && matcher.matches(path.getFileName()), options),
+                Spliterator.NONNULL).map(PathAttributes::getPath);
+    }
+
+    /**
+     * Finds directories within a given directory and its subdirectories.
+     */
+    public static Stream<Path> directoriesAndFiles(Path directory) {
+        return walk(new FilesIterator(directory), Spliterator.NONNULL);
+    }
+
+    /**
+     * Finds directories and files within a given directory and its subdirectories.
+     * The files are filtered by matching the String representation of their file names against the given globbing pattern.
+     */
+    public static Stream<Path> directoriesAndFiles(Path directory, String glob) {
+        final PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+        return walk(new FilesIterator(directory, path -> matcher.matches(path.getFileName())), Spliterator.NONNULL);
+    }
+
+    /**
+     * Finds directories and files within a given directory and its subdirectories.
+     * The files are filtered by the given filter
+     */
+    public static Stream<Path> directoriesAndFiles(Path directory, DirectoryStream.Filter<Path> filter) {
+        return walk(new FilesIterator(directory, filter), Spliterator.NONNULL);
+    }
+
+    /**
+     * Finds directories and files within a given directory and its subdirectories according to the walk options.
+     */
+    public static Stream<Path> directoriesAndFiles(Path directory, WalkOptions options) {
+        return walk(new AttributesIterator(directory, (path, attributes) -> true, options), Spliterator.NONNULL).map(PathAttributes::getPath);
+    }
+
+    /**
+     * Finds directories and files within a given directory and its subdirectories according to the walk options.
+     * The entries are filtered by matching the String representation of their file names against the given globbing pattern,
+     * unlike {@link #directoriesAndFiles(Path, String)} the not matching directories are walked too unless they are pruned.
+     */
+    public static Stream<Path> directoriesAndFiles(Path directory, String glob, WalkOptions options) {
+        final PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+        return walk(new AttributesIterator(directory, (path, attributes) -> matcher.matches(path.getFileName()), options), Spliterator.NONNULL)
+                .map(PathAttributes::getPath);
+    }
+
+    /**
+     * Finds files within a given directory and its subdirectories in a deterministic order.
+     * Entries of every directory are sorted by file names, the files of a subdirectory go in place of it.
+     * Only the listings of the directories on the current path are kept in memory.
+     */
+    public static Stream<Path> filesSorted(Path directory) {
+        return filesSorted(directory, Comparator.naturalOrder());
+    }
+
+    /**
+     * Finds files within a given directory and its subdirectories in a deterministic order.
+     * The files are filtered by matching the String representation of their file names against the given globbing pattern.
+     */
+    public static Stream<Path> filesSorted(Path directory, String glob) {
+        final PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+        return StreamSupport.stream(new SortedFilesSpliterator(directory, Comparator.naturalOrder(),
+                path -> matcher.matches(path.getFileName()), false, false), false);
+    }
+
+    /**
+     * Finds files within a given directory and its subdirectories in a deterministic order.
+     * Entries of every directory are sorted by the comparator of file names.
+     */
+    public static Stream<Path> filesSorted(Path directory, Comparator<Path> names) {
+        return StreamSupport.stream(new SortedFilesSpliterator(directory, names, path -> true, false, false), false);
+    }
+
+    /**
+     * Finds directories and files within a given directory and its subdirectories in a deterministic order.
+     * Entries of every directory are sorted by the comparator of file names, a directory goes right before its entries
+     * or right after them in post-order. The stream is sorted by {@link SortedFilesSpliterator#treeOrder(Comparator, boolean)}.
+     */
+    public static Stream<Path> directoriesAndFilesSorted(Path directory, Comparator<Path> names, boolean postOrder) {
+        return StreamSupport.stream(new SortedFilesSpliterator(directory, names, path -> true, true, postOrder), false);
+    }
+
+    /**
+     * Finds files and directories added, modified or deleted within a given directory and its subdirectories
+     * since the snapshot was taken. Directories are never reported as modified.
+     * Directories which modification time is not changed are not listed again.
+     */
+    public static Stream<PathChange> changes(Path root, DirectorySnapshot snapshot) {
+        return fromIterator(new ChangesIterator(root, snapshot), Spliterator.NONNULL);
+    }
+
+    /**
+     * Finds files and directories added, modified or deleted within a given directory and its subdirectories
+     * since the snapshot was taken. When the stream is fully consumed the new snapshot is passed to the given consumer.
+     */
+    public static Stream<PathChange> changes(Path root, DirectorySnapshot snapshot, Consumer<DirectorySnapshot> updated) {
+        return fromIterator(new ChangesIterator(root, snapshot, updated, true), Spliterator.NONNULL);
+    }
+
+    /**
+     * Groups consecutive elements of the stream into lists of the given size, the last list may be smaller.
+     * Parallel ordered streams are split by batches read ahead, so batches are the same as in sequential order.
+     */
+    public static <T> Stream<List<T>> batched(Stream<T> stream, int size) {
+        return batched(stream, size, false);
+    }
+
+    /**
+     * Groups consecutive elements of the stream into lists of the given size, the last list may be smaller.
+     * @param reuse if true the same list is passed for every batch which is valid only until the next batch is requested,
+     *              batches split off for parallel processing are never reused
+     */
+    public static <T> Stream<List<T>> batched(Stream<T> stream, int size, boolean reuse) {
+        return grouped(stream, new BatchSpliterator<>(stream.spliterator(), size, reuse));
     }
 
     /**
-     * Finds files within a given directory and its subdirectories.
+     * Streams full windows of the given size of consecutive elements, a new window starts every step elements.
      */
-    public static Stream<Path> files(Path directory) {
-        return fromIterator(new FilesIterator(directory), Spliterator.NONNULL).filter(path -> !Files.isDirectory(path));
+    public static <T> Stream<List<T>> sliding(Stream<T> stream, int window, int step) {
+        return sliding(stream, window, step, false);
     }
 
     /**
-     * Finds files within a given directory and its subdirectories.
-     * The files are filtered by matching the String representation of their file names against the given globbing pattern.
+     * Streams full windows of the given size of consecutive elements, a new window starts every step elements.
+     * @param reuse if true the same unmodifiable list is passed for every window which is valid only until the next window is requested,
+     *              windows split off for parallel processing are never reused
      */
-    public static Stream<Path> files(Path directory, String glob) {
-        final PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
-        return fromIterator(new FilesIterator(directory, path -> Files.isDirectory(path) || matcher.matches(path.getFileName())), Spliterator.NONNULL)
-                .filter(path -> !Files.isDirectory(path));
+    public static <T> Stream<List<T>> sliding(Stream<T> stream, int window, int step, boolean reuse) {
+        return grouped(stream, new SlidingSpliterator<>(stream.spliterator(), window, step, reuse));
     }
 
     /**
-     * Finds files within a given directory and its subdirectories.
-     * The files are filtered by the given filter
+     * Groups consecutive elements of the stream which have equal keys
      */
-    public static Stream<Path> files(Path directory, DirectoryStream.Filter<Path> filter) {
-        return fromIterator(new FilesIterator(directory, path -> Files.isDirectory(path) || filter.accept(path)), Spliterator.NONNULL).filter(path -> !Files.isDirectory(path));
+    public static <T> Stream<List<T>> groupAdjacent(Stream<T> stream, Function<? super T, ?> key) {
+        return grouped(stream, new AdjacentSpliterator<>(stream.spliterator(), key));
     }
 
     /**
-     * Finds directories within a given directory and its subdirectories.
+     * Stops the stream as soon as the signal is canceled, the signal can be canceled from any thread.
+     * It is checked before every element of the source, so a source that takes long to produce one element,
+     * like a walk skipping most of the entries, should check the signal by itself, see {@link WalkOptions.Builder#cancelSignal(CancelSignal)}.
      */
-    public static Stream<Path> directories(Path directory) {
-        return fromIterator(new FilesIterator(directory, Files::isDirectory), Spliterator.NONNULL);
+    public static <T> Stream<T> cancelable(Stream<T> stream, CancelSignal signal) {
+        return StreamSupport.stream(new CancelableSpliterator<>(stream.spliterator(), signal), stream.isParallel()).onClose(stream::close);
     }
 
     /**
-     * Finds directories within a given directory and its subdirectories.
-     * The files are filtered by matching the String representation of their file names against the given globbing pattern.
+     * Passes elements of the stream to the predicate while it returns true, no exception is required to stop early.
+     * Elements are pulled one by one by {@link Spliterator#tryAdvance(Consumer)}, so nothing is read after the stop.
+     * The stream is closed when the iteration ends, so sources like {@link #files(Path)} release their resources on an early stop.
+     * @return the element which stopped the iteration or empty if all the elements were accepted
+     * @throws NullPointerException if the stream has a null element, it could not be told apart from the empty result
      */
-    public static Stream<Path> directories(Path directory, String glob) {
-        final PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
-        return fromIterator(new FilesIterator(directory, path -> Files.isDirectory(path) && matcher.matches(path.getFileName())), Spliterator.NONNULL);
+    public static <T> Optional<T> forEachWhile(Stream<T> stream, Predicate<? super T> predicate) {
+        try (Stream<T> source = stream) {
+            final Spliterator<T> spliterator = source.spliterator();
+            final Holder<T> stopped = new Holder<>();
+            final boolean[] accepted = {true};
+            final Consumer<T> consumer = element -> {
+                if (!predicate.test(Objects.requireNonNull(element, "Null element"))) {
+                    accepted[0] = false;
+                    stopped.setValue(element);
+                }
+            };
+            while (accepted[0] && spliterator.tryAdvance(consumer)) {
+            }
+            return stopped.toOptional();
+        }
     }
 
     /**
-     * Finds directories within a given directory and its subdirectories.
-     * The files are filtered by the given filter
+     * Backport of Java 9 {@code Stream.takeWhile}: the longest prefix of the stream which elements match the predicate.
+     * The source is read lazily and not split, so parallel streams take the prefix sequentially.
      */
-    public static Stream<Path> directories(Path directory, DirectoryStream.Filter<Path> filter) {
-        return fromIterator(new FilesIterator(directory, path -> Files.isDirectory(path) && filter.accept(path)), Spliterator.NONNULL);
+    public static <T> Stream<T> takeWhile(Stream<T> stream, Predicate<? super T> predicate) {
+        return StreamSupport.stream(new TakeWhileSpliterator<>(stream.spliterator(), predicate), stream.isParallel()).onClose(stream::close);
     }
 
     /**
-     * Finds directories within a given directory and its subdirectories.
+     * Backport of Java 9 {@code Stream.dropWhile}: the rest of the stream after the longest prefix which elements match the predicate.
+     * The result is not split, so a parallel stream is processed sequentially.
      */
-    public static Stream<Path> directoriesAndFiles(Path directory) {
-        return fromIterator(new FilesIterator(directory), Spliterator.NONNULL);
+    public static <T> Stream<T> dropWhile(Stream<T> stream, Predicate<? super T> predicate) {
+        return StreamSupport.stream(new DropWhileSpliterator<>(stream.spliterator(), predicate), stream.isParallel()).onClose(stream::close);
+    }
+
+    private static <T, R> Stream<R> grouped(Stream<T> stream, Spliterator<R> spliterator) {
+        return StreamSupport.stream(spliterator, stream.isParallel()).onClose(stream::close);
     }
 
     /**
-     * Finds directories and files within a given directory and its subdirectories.
-     * The files are filtered by matching the String representation of their file names against the given globbing pattern.
+     * Maps elements of the stream concurrently by virtual threads on JDK 21+ or by a shared pool of daemon threads otherwise.
+     * At most the given number of elements are mapped at once, results are in the stream order.
+     * Exceptions of the mapper are rethrown as they are, closing the stream cancels the tasks in flight.
      */
-    public static Stream<Path> directoriesAndFiles(Path directory, String glob) {
-        final PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
-        return fromIterator(new FilesIterator(directory, path -> matcher.matches(path.getFileName())), Spliterator.NONNULL);
+    public static <T, R> Stream<R> mapConcurrent(Stream<T> stream, int parallelism, Function<? super T, ? extends R> mapper) {
+        return mapConcurrent(stream, parallelism, true, DefaultExecutor.get(), mapper);
     }
 
     /**
-     * Finds directories and files within a given directory and its subdirectories.
-     * The files are filtered by the given filter
+     * Maps elements of the stream concurrently by the given executor. At most the given number of elements are mapped at once.
+     * The source stream is read by the consuming thread only.
+     * Exceptions of the mapper are rethrown as they are, closing the stream cancels the tasks in flight.
+     * @param ordered if true results are in the stream order, otherwise in the order of completion
      */
-    public static Stream<Path> directoriesAndFiles(Path directory, DirectoryStream.Filter<Path> filter) {
-        return fromIterator(new FilesIterator(directory, filter), Spliterator.NONNULL);
+    public static <T, R> Stream<R> mapConcurrent(Stream<T> stream, int parallelism, boolean ordered, Executor executor,
+                                                 Function<? super T, ? extends R> mapper) {
+        final ConcurrentMapIterator<T, R> iterator = new ConcurrentMapIterator<>(stream.iterator(), parallelism, ordered, executor, mapper);
+        return fromIterator(iterator, ordered ? Spliterator.ORDERED : 0).onClose(iterator::cancel).onClose(stream::close);
     }
 
     /**
@@ -231,6 +859,67 @@ public class StreamUtil {
         }
     }
 
+    /**
+     * Adapts a function throwing checked exceptions to use in streams, the exceptions are thrown as they are.
+     * The adapter is created once, unlike {@code map(x -> unchecked(() -> f(x)))} which creates a callable for every element.
+     * @param function some lambda throwing checked exception
+     * @return function that throws the same exceptions unchecked
+     */
+    public static <T, R> Function<T, R> uncheckedF(ThrowingFunction<? super T, ? extends R> function) {
+        return t -> {
+            try {
+                return function.apply(t);
+            } catch (Exception ex) {
+                return sneakyThrow(ex);
+            }
+        };
+    }
+
+    /**
+     * Adapts a bi-function throwing checked exceptions, the exceptions are thrown as they are
+     * @param function some lambda throwing checked exception
+     * @return bi-function that throws the same exceptions unchecked
+     */
+    public static <T, U, R> BiFunction<T, U, R> uncheckedBF(ThrowingBiFunction<? super T, ? super U, ? extends R> function) {
+        return (t, u) -> {
+            try {
+                return function.apply(t, u);
+            } catch (Exception ex) {
+                return sneakyThrow(ex);
+            }
+        };
+    }
+
+    /**
+     * Adapts a predicate throwing checked exceptions to use in streams, the exceptions are thrown as they are
+     * @param predicate some lambda throwing checked exception
+     * @return predicate that throws the same exceptions unchecked
+     */
+    public static <T> Predicate<T> uncheckedP(ThrowingPredicate<? super T> predicate) {
+        return t -> {
+            try {
+                return predicate.test(t);
+            } catch (Exception ex) {
+                return sneakyThrow(ex);
+            }
+        };
+    }
+
+    /**
+     * Adapts a consumer throwing checked exceptions to use in streams, the exceptions are thrown as they are
+     * @param consumer some lambda throwing checked exception
+     * @return consumer that throws the same exceptions unchecked
+     */
+    public static <T> Consumer<T> uncheckedC(ThrowingConsumer<? super T> consumer) {
+        return t -> {
+            try {
+                consumer.accept(t);
+            } catch (Exception ex) {
+                sneakyThrow(ex);
+            }
+        };
+    }
+
     /**
      * Executes runnable then return null of required type
      * @param runnable some code
@@ -307,6 +996,104 @@ public class StreamUtil {
         uninterrupted(interruptableSupplier);
     }
 
+    /**
+     * Calls the callable until it succeeds or the policy gives up, sleeping between attempts with exponential backoff and jitter
+     * @param callable some lambda throwing checked exception
+     * @param policy number of attempts, delays and exceptions to retry
+     * @param <R> result type
+     * @return result of the first successful call
+     */
+    public static <R> R retrying(Callable<R> callable, RetryPolicy policy) {
+        return retrying(callable, policy, Deadline.none());
+    }
+
+    /**
+     * Calls the callable until it succeeds, the policy gives up or the next attempt would start after the deadline.
+     * The last exception is thrown as it is with the previous one suppressed.
+     * If the thread is interrupted while sleeping the interrupt status is kept and the last exception is thrown.
+     * @param callable some lambda throwing checked exception
+     * @param policy number of attempts, delays and exceptions to retry
+     * @param deadline time after which no attempt is started
+     * @param <R> result type
+     * @return result of the first successful call
+     */
+    public static <R> R retrying(Callable<R> callable, RetryPolicy policy, Deadline deadline) {
+        Exception failure = null;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return callable.call();
+            } catch (Exception e) {
+                if (failure != null && failure != e) {
+                    e.addSuppressed(failure);
+                }
+                failure = e;
+                if (attempt >= policy.getMaxAttempts() || e instanceof InterruptedException || !policy.getRetryOn().test(e)) {
+                    return sneakyThrow(e);
+                }
+            }
+
+            final long delay = policy.delayNanos(attempt, ThreadLocalRandom.current().nextDouble());
+            if (delay >= deadline.remainingNanos()) {
+                return sneakyThrow(failure);
+            }
+            if (delay > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failure.addSuppressed(e);
+                    return sneakyThrow(failure);
+                }
+            }
+        }
+    }
+
+    /**
+     * Calls the supplier by virtual threads on JDK 21+ or by a shared pool of daemon threads otherwise
+     * and waits for the result at most the given time
+     * @see #withTimeout(InterruptableSupplier, Deadline, Executor)
+     */
+    public static <T> T withTimeout(InterruptableSupplier<T> interruptableSupplier, Duration timeout) {
+        return withTimeout(interruptableSupplier, Deadline.after(timeout), DefaultExecutor.get());
+    }
+
+    /**
+     * Calls the supplier by virtual threads on JDK 21+ or by a shared pool of daemon threads otherwise
+     * and waits for the result until the deadline
+     * @see #withTimeout(InterruptableSupplier, Deadline, Executor)
+     */
+    public static <T> T withTimeout(InterruptableSupplier<T> interruptableSupplier, Deadline deadline) {
+        return withTimeout(interruptableSupplier, deadline, DefaultExecutor.get());
+    }
+
+    /**
+     * Calls the supplier by the executor and waits for the result until the deadline.
+     * On timeout the call is interrupted and TimeoutException is thrown, exceptions of the supplier are thrown as they are.
+     * If the waiting thread is interrupted the call is interrupted too,
+     * InterruptedException is thrown and the interrupt status of the thread is kept.
+     * @param interruptableSupplier some supplier throwing InterruptedException
+     * @param deadline time to wait the result until
+     * @param executor executor to call the supplier
+     * @param <T> result type
+     * @return result of the supplier
+     */
+    public static <T> T withTimeout(InterruptableSupplier<T> interruptableSupplier, Deadline deadline, Executor executor) {
+        final FutureTask<T> task = new FutureTask<>(interruptableSupplier::get);
+        executor.execute(task);
+        try {
+            return task.get(Math.max(deadline.remainingNanos(), 0), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            return sneakyThrow(e.getCause());
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            return sneakyThrow(e);
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            return sneakyThrow(e);
+        }
+    }
+
     /**
      * Returns an iterator consisting of the results of applying the given
      * function to the elements of this iterator.
@@ -419,4 +1206,190 @@ public class StreamUtil {
             }
         };
     }
+
+    /**
+     * Returns an int iterator consisting of the results of applying the given
+     * function to the elements of this iterator.
+     * @param iterator source iterator
+     * @param mapper function to apply to each element
+     * @return new iterator
+     */
+    public static PrimitiveIterator.OfInt iteratorMapInt(PrimitiveIterator.OfInt iterator, IntUnaryOperator mapper) {
+        return new PrimitiveIterator.OfInt() {
+            @Override public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override public int nextInt() {
+                return mapper.applyAsInt(iterator.nextInt());
+            }
+
+            @Override public void remove() {
+                iterator.remove();
+            }
+        };
+    }
+
+    /**
+     * Returns a long iterator consisting of the results of applying the given
+     * function to the elements of this iterator.
+     * @param iterator source iterator
+     * @param mapper function to apply to each element
+     * @return new iterator
+     */
+    public static PrimitiveIterator.OfLong iteratorMapLong(PrimitiveIterator.OfLong iterator, LongUnaryOperator mapper) {
+        return new PrimitiveIterator.OfLong() {
+            @Override public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override public long nextLong() {
+                return mapper.applyAsLong(iterator.nextLong());
+            }
+
+            @Override public void remove() {
+                iterator.remove();
+            }
+        };
+    }
+
+    /**
+     * Returns a double iterator consisting of the results of applying the given
+     * function to the elements of this iterator.
+     * @param iterator source iterator
+     * @param mapper function to apply to each element
+     * @return new iterator
+     */
+    public static PrimitiveIterator.OfDouble iteratorMapDouble(PrimitiveIterator.OfDouble iterator, DoubleUnaryOperator mapper) {
+        return new PrimitiveIterator.OfDouble() {
+            @Override public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override public double nextDouble() {
+                return mapper.applyAsDouble(iterator.nextDouble());
+            }
+
+            @Override public void remove() {
+                iterator.remove();
+            }
+        };
+    }
+
+    /**
+     * Returns an int iterator consisting of the elements of this iterator that match
+     * the given predicate.
+     * @param iterator source iterator
+     * @param predicate predicate to apply to each element to determine if it should be included
+     * @return new iterator
+     */
+    public static PrimitiveIterator.OfInt iteratorFilterInt(PrimitiveIterator.OfInt iterator, IntPredicate predicate) {
+        return new PrimitiveIterator.OfInt() {
+            int next;
+            boolean hasNext;
+
+            @Override public boolean hasNext() {
+                if (hasNext) {
+                    return true;
+                }
+
+                while (iterator.hasNext()) {
+                    next = iterator.nextInt();
+                    if (predicate.test(next)) {
+                        hasNext = true;
+                        return true;
+                    }
+                }
+
+                return false;
+            }
+
+            @Override public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                hasNext = false;
+                return next;
+            }
+        };
+    }
+
+    /**
+     * Returns a long iterator consisting of the elements of this iterator that match
+     * the given predicate.
+     * @param iterator source iterator
+     * @param predicate predicate to apply to each element to determine if it should be included
+     * @return new iterator
+     */
+    public static PrimitiveIterator.OfLong iteratorFilterLong(PrimitiveIterator.OfLong iterator, LongPredicate predicate) {
+        return new PrimitiveIterator.OfLong() {
+            long next;
+            boolean hasNext;
+
+            @Override public boolean hasNext() {
+                if (hasNext) {
+                    return true;
+                }
+
+                while (iterator.hasNext()) {
+                    next = iterator.nextLong();
+                    if (predicate.test(next)) {
+                        hasNext = true;
+                        return true;
+                    }
+                }
+
+                return false;
+            }
+
+            @Override public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                hasNext = false;
+                return next;
+            }
+        };
+    }
+
+    /**
+     * Returns a double iterator consisting of the elements of this iterator that match
+     * the given predicate.
+     * @param iterator source iterator
+     * @param predicate predicate to apply to each element to determine if it should be included
+     * @return new iterator
+     */
+    public static PrimitiveIterator.OfDouble iteratorFilterDouble(PrimitiveIterator.OfDouble iterator, DoublePredicate predicate) {
+        return new PrimitiveIterator.OfDouble() {
+            double next;
+            boolean hasNext;
+
+            @Override public boolean hasNext() {
+                if (hasNext) {
+                    return true;
+                }
+
+                while (iterator.hasNext()) {
+                    next = iterator.nextDouble();
+                    if (predicate.test(next)) {
+                        hasNext = true;
+                        return true;
+                    }
+                }
+
+                return false;
+            }
+
+            @Override public double nextDouble() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                hasNext = false;
+                return next;
+            }
+        };
+    }
 }
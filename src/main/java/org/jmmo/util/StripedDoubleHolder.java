@@ -0,0 +1,56 @@
+package org.jmmo.util;
+
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Thread safe double holder for sums updated by many threads at once, like counters in parallel streams.
+ * Updates go to striped cells of {@link DoubleAdder}, so they do not contend, reading the value sums the cells.
+ */
+public class StripedDoubleHolder extends AbstractConcurrentHolder {
+    private static final long serialVersionUID = -897412365501938477L;
+
+    private final DoubleAdder adder = new DoubleAdder();
+
+    public StripedDoubleHolder() {
+    }
+
+    public StripedDoubleHolder(double value) {
+        add(value);
+    }
+
+    /**
+     * @return the sum, it is not an atomic snapshot if the holder is being updated concurrently
+     */
+    public double getValue() {
+        return adder.sum();
+    }
+
+    public void add(double delta) {
+        adder.add(delta);
+        markPresent();
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * Resets the sum to zero, the holder stays present
+     */
+    public void reset() {
+        adder.reset();
+    }
+
+    /**
+     * @return the sum or empty if nothing was added
+     */
+    public OptionalDouble toOptional() {
+        return isPresent() ? OptionalDouble.of(getValue()) : OptionalDouble.empty();
+    }
+
+    @Override
+    protected String valueString() {
+        return String.valueOf(getValue());
+    }
+}
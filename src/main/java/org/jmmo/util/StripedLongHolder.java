@@ -0,0 +1,56 @@
+package org.jmmo.util;
+
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe long holder for sums updated by many threads at once, like counters in parallel streams.
+ * Updates go to striped cells of {@link LongAdder}, so they do not contend, reading the value sums the cells.
+ */
+public class StripedLongHolder extends AbstractConcurrentHolder {
+    private static final long serialVersionUID = 5029834761109371256L;
+
+    private final LongAdder adder = new LongAdder();
+
+    public StripedLongHolder() {
+    }
+
+    public StripedLongHolder(long value) {
+        add(value);
+    }
+
+    /**
+     * @return the sum, it is not an atomic snapshot if the holder is being updated concurrently
+     */
+    public long getValue() {
+        return adder.sum();
+    }
+
+    public void add(long delta) {
+        adder.add(delta);
+        markPresent();
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * Resets the sum to zero, the holder stays present
+     */
+    public void reset() {
+        adder.reset();
+    }
+
+    /**
+     * @return the sum or empty if nothing was added
+     */
+    public OptionalLong toOptional() {
+        return isPresent() ? OptionalLong.of(getValue()) : OptionalLong.empty();
+    }
+
+    @Override
+    protected String valueString() {
+        return String.valueOf(getValue());
+    }
+}
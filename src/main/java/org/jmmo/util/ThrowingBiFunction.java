@@ -0,0 +1,10 @@
+package org.jmmo.util;
+
+/**
+ * BiFunction that throw some exception
+ * @see StreamUtil#uncheckedBF(ThrowingBiFunction)
+ */
+@FunctionalInterface
+public interface ThrowingBiFunction<T, U, R> {
+    R apply(T t, U u) throws Exception;
+}
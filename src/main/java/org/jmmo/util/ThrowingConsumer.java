@@ -0,0 +1,10 @@
+package org.jmmo.util;
+
+/**
+ * Consumer that throw some exception
+ * @see StreamUtil#uncheckedC(ThrowingConsumer)
+ */
+@FunctionalInterface
+public interface ThrowingConsumer<T> {
+    void accept(T t) throws Exception;
+}
@@ -0,0 +1,10 @@
+package org.jmmo.util;
+
+/**
+ * Function that throw some exception
+ * @see StreamUtil#uncheckedF(ThrowingFunction)
+ */
+@FunctionalInterface
+public interface ThrowingFunction<T, R> {
+    R apply(T t) throws Exception;
+}
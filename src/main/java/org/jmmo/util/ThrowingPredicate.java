@@ -0,0 +1,10 @@
+package org.jmmo.util;
+
+/**
+ * Predicate that throw some exception
+ * @see StreamUtil#uncheckedP(ThrowingPredicate)
+ */
+@FunctionalInterface
+public interface ThrowingPredicate<T> {
+    boolean test(T t) throws Exception;
+}
@@ -0,0 +1,137 @@
+package org.jmmo.util;
+
+import java.nio.file.Path;
+import java.util.function.Predicate;
+
+/**
+ * Options of a directory walk. Use {@link #builder()} to create them.
+ */
+public class WalkOptions {
+    public static final WalkOptions DEFAULT = builder().build();
+
+    private final int maxDepth;
+    private final Predicate<Path> prune;
+    private final boolean followLinks;
+    private final boolean skipAccessDenied;
+    private final CancelSignal cancelSignal;
+    private final WalkStats stats;
+
+    protected WalkOptions(Builder builder) {
+        this.maxDepth = builder.maxDepth;
+        this.prune = builder.prune;
+        this.followLinks = builder.followLinks;
+        this.skipAccessDenied = builder.skipAccessDenied;
+        this.cancelSignal = builder.cancelSignal;
+        this.stats = builder.stats;
+    }
+
+    /**
+     * @return maximum number of directory levels to walk, entries of the start directory have depth 1
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return predicate that is tested before descending into a directory, the subtree is skipped if it returns true
+     */
+    public Predicate<Path> getPrune() {
+        return prune;
+    }
+
+    /**
+     * @return true if symbolic links are followed, directory cycles are detected by file keys then
+     */
+    public boolean isFollowLinks() {
+        return followLinks;
+    }
+
+    /**
+     * @return true if unreadable directories and entries are skipped instead of failing the walk
+     */
+    public boolean isSkipAccessDenied() {
+        return skipAccessDenied;
+    }
+
+    /**
+     * @return signal that stops the walk when canceled, it is checked before every entry, may be null
+     */
+    public CancelSignal getCancelSignal() {
+        return cancelSignal;
+    }
+
+    /**
+     * @return metrics collected by the walk, may be null then nothing is measured
+     */
+    public WalkStats getStats() {
+        return stats;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public String toString() {
+        return "WalkOptions{" +
+                "maxDepth=" + maxDepth +
+                ", prune=" + prune +
+                ", followLinks=" + followLinks +
+                ", skipAccessDenied=" + skipAccessDenied +
+                ", cancelSignal=" + cancelSignal +
+                ", stats=" + stats +
+                '}';
+    }
+
+    public static class Builder {
+        private int maxDepth = Integer.MAX_VALUE;
+        private Predicate<Path> prune = path -> false;
+        private boolean followLinks = true;
+        private boolean skipAccessDenied;
+        private CancelSignal cancelSignal;
+        private WalkStats stats;
+
+        protected Builder() {
+        }
+
+        public Builder maxDepth(int maxDepth) {
+            if (maxDepth < 0) {
+                throw new IllegalArgumentException("Max depth must not be negative: " + maxDepth);
+            }
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        public Builder prune(Predicate<Path> prune) {
+            this.prune = prune;
+            return this;
+        }
+
+        public Builder followLinks(boolean followLinks) {
+            this.followLinks = followLinks;
+            return this;
+        }
+
+        public Builder skipAccessDenied(boolean skipAccessDenied) {
+            this.skipAccessDenied = skipAccessDenied;
+            return this;
+        }
+
+        public Builder cancelSignal(CancelSignal cancelSignal) {
+            this.cancelSignal = cancelSignal;
+            return this;
+        }
+
+        /**
+         * Collects metrics of the walk, only the walks taking options are measured
+         */
+        public Builder stats(WalkStats stats) {
+            this.stats = stats;
+            return this;
+        }
+
+        public WalkOptions build() {
+            return new WalkOptions(this);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.jmmo.util;
+
+import java.nio.file.Path;
+
+/**
+ * Metrics of a directory walk, pass it to {@link WalkOptions.Builder#stats(WalkStats)} to collect them.
+ * Only the {@link StreamUtil} walks taking {@link WalkOptions} are measured, such as {@link StreamUtil#files(Path, WalkOptions)}
+ * or {@link StreamUtil#filesWithAttributes(Path, java.util.function.BiPredicate, WalkOptions)}, the parallel, sorted
+ * and prefetched walks take no options and collect nothing. The methods are called by the walking thread,
+ * so an instance should not be shared by concurrent walks. Override them to forward the metrics elsewhere,
+ * for example to JFR events on JDK 11+.
+ */
+public class WalkStats {
+    private long directoriesOpened;
+    private long entriesRead;
+    private long attributesRead;
+    private long filterRejections;
+    private int maxPendingDirectories;
+    private long openNanos;
+    private long readNanos;
+    private long attributesNanos;
+    private long filterNanos;
+    private long consumerNanos;
+
+    /**
+     * Called when a directory stream is opened
+     */
+    public void directoryOpened(Path directory, long nanos) {
+        directoriesOpened++;
+        openNanos += nanos;
+    }
+
+    /**
+     * Called when an entry is read from a directory stream
+     */
+    public void entryRead(long nanos) {
+        entriesRead++;
+        readNanos += nanos;
+    }
+
+    /**
+     * Called when attributes of an entry are read
+     */
+    public void attributesRead(Path path, long nanos) {
+        attributesRead++;
+        attributesNanos += nanos;
+    }
+
+    /**
+     * Called when the filter is tested
+     */
+    public void filtered(Path path, boolean accepted, long nanos) {
+        if (!accepted) {
+            filterRejections++;
+        }
+        filterNanos += nanos;
+    }
+
+    /**
+     * Called when a directory is added to the pending ones
+     */
+    public void pending(int pendingDirectories) {
+        if (pendingDirectories > maxPendingDirectories) {
+            maxPendingDirectories = pendingDirectories;
+        }
+    }
+
+    /**
+     * Called with the time the consumer spent between getting an entry and requesting the next one
+     */
+    public void consumed(long nanos) {
+        consumerNanos += nanos;
+    }
+
+    public long getDirectoriesOpened() {
+        return directoriesOpened;
+    }
+
+    public long getEntriesRead() {
+        return entriesRead;
+    }
+
+    public long getAttributesRead() {
+        return attributesRead;
+    }
+
+    public long getFilterRejections() {
+        return filterRejections;
+    }
+
+    public int getMaxPendingDirectories() {
+        return maxPendingDirectories;
+    }
+
+    public long getOpenNanos() {
+        return openNanos;
+    }
+
+    public long getReadNanos() {
+        return readNanos;
+    }
+
+    public long getAttributesNanos() {
+        return attributesNanos;
+    }
+
+    public long getFilterNanos() {
+        return filterNanos;
+    }
+
+    public long getConsumerNanos() {
+        return consumerNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "WalkStats{" +
+                "directoriesOpened=" + directoriesOpened +
+                ", entriesRead=" + entriesRead +
+                ", attributesRead=" + attributesRead +
+                ", filterRejections=" + filterRejections +
+                ", maxPendingDirectories=" + maxPendingDirectories +
+                ", openNanos=" + openNanos +
+                ", readNanos=" + readNanos +
+                ", attributesNanos=" + attributesNanos +
+                ", filterNanos=" + filterNanos +
+                ", consumerNanos=" + consumerNanos +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package org.jmmo.util.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Function;
+
+/**
+ * Groups consecutive elements having equal keys
+ * @param <T> type of elements
+ */
+public class AdjacentSpliterator<T> extends GroupingSpliterator<T, List<T>> {
+    private final Function<? super T, ?> key;
+    private boolean hasPending;
+    private T pending;
+    private Object pendingKey;
+
+    public AdjacentSpliterator(Spliterator<T> source, Function<? super T, ?> key) {
+        super(source);
+        this.key = key;
+    }
+
+    @Override
+    protected List<T> group(boolean copy) {
+        if (!hasPending) {
+            if (!advance()) {
+                return null;
+            }
+            pending = element;
+            pendingKey = key.apply(element);
+        }
+
+        final List<T> group = new ArrayList<>();
+        final Object groupKey = pendingKey;
+        group.add(pending);
+        hasPending = false;
+
+        while (advance()) {
+            final Object elementKey = key.apply(element);
+            if (!Objects.equals(groupKey, elementKey)) {
+                pending = element;
+                pendingKey = elementKey;
+                hasPending = true;
+                break;
+            }
+            group.add(element);
+        }
+
+        return group;
+    }
+
+    @Override
+    public long estimateSize() {
+        return source.estimateSize();
+    }
+}
@@ -0,0 +1,270 @@
+package org.jmmo.util.impl;
+
+import org.jmmo.util.CancelSignal;
+import org.jmmo.util.PathAttributes;
+import org.jmmo.util.WalkOptions;
+import org.jmmo.util.WalkStats;
+
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SecureDirectoryStream;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiPredicate;
+
+/**
+ * Walks a directory tree reading attributes of every entry exactly once.
+ * When the directory stream is secure the attributes are read relative to the open directory.
+ * Subdirectories are walked according to the walk options, entries are emitted if they match the filter,
+ * the root directory is not emitted. The walk stops when the cancel signal of the options is canceled.
+ * If the options have stats every phase of the walk is measured, otherwise nothing is.
+ */
+public class AttributesIterator implements CloseableIterator<PathAttributes> {
+    private static final LinkOption[] FOLLOW_LINKS = new LinkOption[0];
+    private static final LinkOption[] NOFOLLOW_LINKS = new LinkOption[] { LinkOption.NOFOLLOW_LINKS };
+
+    private final BiPredicate<Path, BasicFileAttributes> filter;
+    private final WalkOptions options;
+    private final LinkOption[] linkOptions;
+    private final CancelSignal cancelSignal;
+    private final WalkStats stats;
+    private long returnedAt;
+    private final Deque<DirectoryItem> directories = new ArrayDeque<>();
+    private DirectoryItem currentDirectory;
+    private DirectoryStream<Path> currentStream;
+    private Iterator<Path> currentIterator;
+    private PathAttributes current;
+
+    public AttributesIterator(Path directory) {
+        this(directory, (path, attributes) -> true);
+    }
+
+    public AttributesIterator(Path directory, BiPredicate<Path, BasicFileAttributes> filter) {
+        this(directory, filter, WalkOptions.DEFAULT);
+    }
+
+    public AttributesIterator(Path directory, BiPredicate<Path, BasicFileAttributes> filter, WalkOptions options) {
+        this.filter = filter;
+        this.options = options;
+        this.linkOptions = options.isFollowLinks() ? FOLLOW_LINKS : NOFOLLOW_LINKS;
+        this.cancelSignal = options.getCancelSignal();
+        this.stats = options.getStats();
+        if (options.getMaxDepth() > 0) {
+            initStream(new DirectoryItem(directory, 0, options.isFollowLinks() ? rootKey(directory) : null, null));
+        }
+    }
+
+    protected void initStream(DirectoryItem directoryItem) {
+        final long start = now();
+        try {
+            currentStream = Files.newDirectoryStream(directoryItem.directory);
+            if (stats != null) {
+                stats.directoryOpened(directoryItem.directory, now() - start);
+            }
+        } catch (AccessDeniedException e) {
+            if (options.isSkipAccessDenied()) {
+                return;
+            }
+            throw new RuntimeException(e);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        currentIterator = currentStream.iterator();
+        currentDirectory = directoryItem;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (current == null && stats != null && returnedAt != 0) {
+            stats.consumed(now() - returnedAt);
+            returnedAt = 0;
+        }
+
+        while (current == null) {
+            if (cancelSignal != null && cancelSignal.isCanceled()) {
+                close();
+                return false;
+            }
+            if (currentIterator != null) {
+                long start = now();
+                if (currentIterator.hasNext()) {
+                    final Path path = currentIterator.next();
+                    if (stats != null) {
+                        final long read = now();
+                        stats.entryRead(read - start);
+                        start = read;
+                    }
+                    final BasicFileAttributes attributes = readAttributes(path);
+                    if (attributes != null) {
+                        if (stats != null) {
+                            final long read = now();
+                            stats.attributesRead(path, read - start);
+                            start = read;
+                        }
+                        if (attributes.isDirectory() && isDescending(path, attributes)) {
+                            directories.push(new DirectoryItem(path, currentDirectory.depth + 1, attributes.fileKey(), currentDirectory));
+                            if (stats != null) {
+                                stats.pending(directories.size());
+                                start = now();
+                            }
+                        }
+                        final boolean accepted = filter.test(path, attributes);
+                        if (stats != null) {
+                            stats.filtered(path, accepted, now() - start);
+                        }
+                        if (accepted) {
+                            current = new PathAttributes(path, attributes);
+                        }
+                    }
+                    continue;
+                }
+                closeStream();
+            }
+
+            final DirectoryItem directory = directories.poll();
+            if (directory == null) {
+                return false;
+            }
+            initStream(directory);
+        }
+
+        if (stats != null && returnedAt == 0) {
+            returnedAt = now();
+        }
+        return true;
+    }
+
+    private long now() {
+        return stats == null ? 0 : System.nanoTime();
+    }
+
+    protected boolean isDescending(Path path, BasicFileAttributes attributes) {
+        return currentDirectory.depth + 1 < options.getMaxDepth()
+                && !options.getPrune().test(path)
+                && !(options.isFollowLinks() && isCycle(path, attributes.fileKey()));
+    }
+
+    /**
+     * Checks that the directory is one of the directories being walked
+     */
+    protected boolean isCycle(Path path, Object key) {
+        for (DirectoryItem ancestor = currentDirectory; ancestor != null; ancestor = ancestor.parent) {
+            if (key != null && ancestor.key != null) {
+                if (key.equals(ancestor.key)) {
+                    return true;
+                }
+            } else {
+                try {
+                    if (Files.isSameFile(path, ancestor.directory)) {
+                        return true;
+                    }
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads attributes following symbolic links if required, falls back to the link itself if it is broken
+     * @return attributes or null if the entry has gone or is not accessible and should be skipped
+     */
+    protected BasicFileAttributes readAttributes(Path path) {
+        try {
+            try {
+                return readAttributes(path, linkOptions);
+            } catch (NoSuchFileException e) {
+                if (linkOptions == NOFOLLOW_LINKS) {
+                    throw e;
+                }
+                return readAttributes(path, NOFOLLOW_LINKS);
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (AccessDeniedException e) {
+            if (options.isSkipAccessDenied()) {
+                return null;
+            }
+            throw new RuntimeException(e);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private BasicFileAttributes readAttributes(Path path, LinkOption[] options) throws IOException {
+        if (currentStream instanceof SecureDirectoryStream) {
+            final SecureDirectoryStream<Path> secureStream = (SecureDirectoryStream<Path>) currentStream;
+            return secureStream.getFileAttributeView(path.getFileName(), BasicFileAttributeView.class, options).readAttributes();
+        }
+        return Files.readAttributes(path, BasicFileAttributes.class, options);
+    }
+
+    private static Object rootKey(Path directory) {
+        try {
+            return Files.readAttributes(directory, BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Closes the current directory stream and forgets the pending directories
+     */
+    @Override
+    public void close() {
+        directories.clear();
+        if (currentStream != null) {
+            closeStream();
+        }
+    }
+
+    protected void closeStream() {
+        currentIterator = null;
+        try {
+            currentStream.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            currentStream = null;
+        }
+    }
+
+    @Override
+    public PathAttributes next() {
+        if (hasNext()) {
+            final PathAttributes result = current;
+            current = null;
+            return result;
+        } else {
+            throw new NoSuchElementException();
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    static class DirectoryItem {
+        final Path directory;
+        final int depth;
+        final Object key;
+        final DirectoryItem parent;
+
+        DirectoryItem(Path directory, int depth, Object key, DirectoryItem parent) {
+            this.directory = directory;
+            this.depth = depth;
+            this.key = key;
+            this.parent = parent;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.jmmo.util.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+
+/**
+ * Groups consecutive elements into batches of the given size, the last batch may be smaller
+ * @param <T> type of elements
+ */
+public class BatchSpliterator<T> extends GroupingSpliterator<T, List<T>> {
+    private final int size;
+    private final boolean reuse;
+    private List<T> buffer;
+
+    /**
+     * @param reuse if true the same list is returned for every batch
+     */
+    public BatchSpliterator(Spliterator<T> source, int size, boolean reuse) {
+        super(source);
+        if (size < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + size);
+        }
+        this.size = size;
+        this.reuse = reuse;
+    }
+
+    @Override
+    protected List<T> group(boolean copy) {
+        final List<T> batch;
+        if (reuse && !copy) {
+            if (buffer == null) {
+                buffer = new ArrayList<>(size);
+            }
+            batch = buffer;
+            batch.clear();
+        } else {
+            batch = new ArrayList<>(size);
+        }
+
+        while (batch.size() < size && advance()) {
+            batch.add(element);
+        }
+        return batch.isEmpty() ? null : batch;
+    }
+
+    @Override
+    public long estimateSize() {
+        final long estimate = source.estimateSize();
+        return estimate == Long.MAX_VALUE ? estimate : (estimate + size - 1) / size;
+    }
+
+    @Override
+    public int characteristics() {
+        return super.characteristics() | source.characteristics() & (SIZED | SUBSIZED);
+    }
+}
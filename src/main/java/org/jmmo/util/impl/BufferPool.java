@@ -0,0 +1,54 @@
+package org.jmmo.util.impl;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of direct buffers of the same capacity. Allocating direct buffers is expensive,
+ * so they are reused by the threads doing IO. At most {@code maxPooled} idle buffers are kept.
+ */
+public class BufferPool {
+    private final int capacity;
+    private final int maxPooled;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    public BufferPool(int capacity, int maxPooled) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.maxPooled = maxPooled;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return cleared buffer from the pool or a new one if the pool is empty
+     */
+    public ByteBuffer acquire() {
+        final ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        pooled.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Returns the buffer to the pool, it must not be used after that
+     */
+    public void release(ByteBuffer buffer) {
+        ((Buffer) buffer).clear();
+        if (pooled.incrementAndGet() <= maxPooled) {
+            buffers.add(buffer);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.jmmo.util.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Char sequence view of a byte buffer region where every byte is an ISO-8859-1 char
+ */
+public class ByteCharSequence implements CharSequence {
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    public ByteCharSequence() {
+    }
+
+    public ByteCharSequence(ByteBuffer buffer, int offset, int length) {
+        wrap(buffer, offset, length);
+    }
+
+    public ByteCharSequence wrap(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", length: " + length);
+        }
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Start: " + start + ", end: " + end + ", length: " + length);
+        }
+        return new ByteCharSequence(buffer, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,56 @@
+package org.jmmo.util.impl;
+
+import org.jmmo.util.CancelSignal;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator that stops advancing as soon as the signal is canceled.
+ * The signal is checked before every element of the source.
+ */
+public class CancelableSpliterator<T> implements Spliterator<T> {
+    private final Spliterator<T> source;
+    private final CancelSignal signal;
+
+    public CancelableSpliterator(Spliterator<T> source, CancelSignal signal) {
+        this.source = source;
+        this.signal = signal;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        return !signal.isCanceled() && source.tryAdvance(action);
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (tryAdvance(action)) {
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (signal.isCanceled()) {
+            return null;
+        }
+        final Spliterator<T> prefix = source.trySplit();
+        return prefix == null ? null : new CancelableSpliterator<>(prefix, signal);
+    }
+
+    @Override
+    public long estimateSize() {
+        return signal.isCanceled() ? 0 : source.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return source.characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+    }
+
+    @Override
+    public Comparator<? super T> getComparator() {
+        return source.getComparator();
+    }
+}
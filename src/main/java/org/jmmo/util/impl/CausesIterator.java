@@ -0,0 +1,225 @@
+package org.jmmo.util.impl;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Iterates over a throwable, its causes and optionally suppressed exceptions, every throwable is returned once.
+ * Visited throwables are compared by identity, up to {@link #LINEAR_SEEN} of them are checked by a linear scan,
+ * an identity map is allocated only for deeper graphs. A plain cause chain is scanned without allocations at all.
+ * The depth of a throwable is the length of the shortest path to it. Depth first, a throwable already returned
+ * and reached again by a shorter path is not returned again but its descendants are visited once more up to the max depth.
+ */
+public class CausesIterator implements Iterator<Throwable> {
+    static final int LINEAR_SEEN = 16;
+
+    private final Throwable root;
+    private final boolean suppressed;
+    private final boolean breadthFirst;
+    private final int maxDepth;
+    private final boolean shortening;
+    private Deque<Node> pending;
+    private Node[] seenNodes;
+    private int seenCount;
+    private Map<Throwable, Node> seenMap;
+    private Set<Throwable> seenSet;
+    private Throwable next;
+    private int nextDepth;
+
+    public CausesIterator(Throwable root) {
+        this(root, false, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param suppressed true if suppressed exceptions are visited after the cause of every throwable
+     * @param breadthFirst true to visit all throwables of a depth before deeper ones, depth first otherwise
+     * @param maxDepth maximum depth to visit, the root has depth 0
+     */
+    public CausesIterator(Throwable root, boolean suppressed, boolean breadthFirst, int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Max depth must not be negative: " + maxDepth);
+        }
+        this.root = root;
+        this.suppressed = suppressed;
+        this.breadthFirst = breadthFirst;
+        this.maxDepth = maxDepth;
+        this.shortening = suppressed && !breadthFirst && maxDepth != Integer.MAX_VALUE;
+        this.next = root;
+        if (suppressed && root != null) {
+            final Node node = new Node(root, 0, false);
+            node.returned = true;
+            addSeen(node);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public Throwable next() {
+        final Throwable current = next;
+        if (current == null) {
+            throw new NoSuchElementException();
+        }
+
+        if (suppressed) {
+            advanceGraph(current, nextDepth);
+        } else {
+            advanceChain(current, nextDepth);
+        }
+        return current;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private void advanceChain(Throwable current, int depth) {
+        final Throwable cause = current.getCause();
+        next = cause == null || depth >= maxDepth || !firstInChain(cause, depth + 1) ? null : cause;
+        nextDepth = depth + 1;
+    }
+
+    /**
+     * Checks that the throwable is not one of the chain members before the given depth
+     */
+    private boolean firstInChain(Throwable throwable, int depth) {
+        if (depth <= LINEAR_SEEN) {
+            Throwable member = root;
+            for (int i = 0; i < depth; i++) {
+                if (member == throwable) {
+                    return false;
+                }
+                member = member.getCause();
+            }
+            return true;
+        }
+
+        if (seenSet == null) {
+            seenSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            Throwable member = root;
+            for (int i = 0; i < depth; i++) {
+                seenSet.add(member);
+                member = member.getCause();
+            }
+        }
+        return seenSet.add(throwable);
+    }
+
+    private void advanceGraph(Throwable current, int depth) {
+        expand(current, depth);
+
+        Node node = pending == null ? null : pending.poll();
+        while (node != null && node.expandOnly) {
+            expand(node.throwable, node.depth);
+            node = pending.poll();
+        }
+        if (node != null) {
+            node.returned = true;
+        }
+        next = node == null ? null : node.throwable;
+        nextDepth = node == null ? 0 : node.depth;
+    }
+
+    private void expand(Throwable current, int depth) {
+        if (depth >= maxDepth) {
+            return;
+        }
+        if (pending == null) {
+            pending = new ArrayDeque<>();
+        }
+        final Throwable[] suppressedExceptions = current.getSuppressed();
+        if (breadthFirst) {
+            offer(current.getCause(), depth + 1, false);
+            for (Throwable throwable : suppressedExceptions) {
+                offer(throwable, depth + 1, false);
+            }
+        } else {
+            for (int i = suppressedExceptions.length - 1; i >= 0; i--) {
+                offer(suppressedExceptions[i], depth + 1, true);
+            }
+            offer(current.getCause(), depth + 1, true);
+        }
+    }
+
+    /**
+     * Queues a throwable seen first time. Depth first with a max depth, a throwable seen deeper gets the smaller depth:
+     * a pending one is expanded with it later, a returned one is queued to expand its descendants again.
+     * Breadth first, a throwable is always seen first at its smallest depth.
+     */
+    private void offer(Throwable throwable, int depth, boolean first) {
+        if (throwable == null) {
+            return;
+        }
+        Node node = seenNode(throwable);
+        if (node == null) {
+            node = new Node(throwable, depth, false);
+            addSeen(node);
+        } else if (shortening && depth < node.depth) {
+            node.depth = depth;
+            if (!node.returned) {
+                return;
+            }
+            node = new Node(throwable, depth, true);
+        } else {
+            return;
+        }
+        if (first) {
+            pending.push(node);
+        } else {
+            pending.add(node);
+        }
+    }
+
+    private Node seenNode(Throwable throwable) {
+        if (seenMap != null) {
+            return seenMap.get(throwable);
+        }
+        for (int i = 0; i < seenCount; i++) {
+            if (seenNodes[i].throwable == throwable) {
+                return seenNodes[i];
+            }
+        }
+        return null;
+    }
+
+    private void addSeen(Node node) {
+        if (seenMap == null) {
+            if (seenCount < LINEAR_SEEN) {
+                if (seenNodes == null) {
+                    seenNodes = new Node[LINEAR_SEEN];
+                }
+                seenNodes[seenCount++] = node;
+                return;
+            }
+            seenMap = new IdentityHashMap<>();
+            for (Node seen : seenNodes) {
+                seenMap.put(seen.throwable, seen);
+            }
+            seenNodes = null;
+        }
+        seenMap.put(node.throwable, node);
+    }
+
+    static class Node {
+        final Throwable throwable;
+        final boolean expandOnly;
+        int depth;
+        boolean returned;
+
+        Node(Throwable throwable, int depth, boolean expandOnly) {
+            this.throwable = throwable;
+            this.depth = depth;
+            this.expandOnly = expandOnly;
+        }
+    }
+}
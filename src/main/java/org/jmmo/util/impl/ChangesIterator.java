@@ -0,0 +1,196 @@
+package org.jmmo.util.impl;
+
+import org.jmmo.util.DirectorySnapshot;
+import org.jmmo.util.PathChange;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Walks a directory tree and compares it with a snapshot.
+ * When a directory modification time is the same as in the snapshot and is old enough to not be racy
+ * the directory is not listed again, only its recorded entries are checked.
+ * Optionally records a new snapshot and passes it to the consumer when the walk is finished.
+ */
+public class ChangesIterator implements Iterator<PathChange> {
+    /**
+     * Directory modification times closer than that to the snapshot time are not trusted
+     * because of coarse time granularity of some file systems
+     */
+    static final long RACY_MILLIS = 2000;
+
+    private final DirectorySnapshot snapshot;
+    private final Consumer<DirectorySnapshot> updated;
+    private final boolean emit;
+    private final long time = System.currentTimeMillis();
+    private final Map<String, DirectorySnapshot.Directory> recorded;
+    private final Deque<DirectoryItem> directories = new ArrayDeque<>();
+    private final Deque<PathChange> changes = new ArrayDeque<>();
+    private boolean finished;
+
+    public ChangesIterator(Path root, DirectorySnapshot snapshot) {
+        this(root, snapshot, null, true);
+    }
+
+    /**
+     * @param updated consumer of the new snapshot or null if it is not required
+     * @param emit false if changes are not required, only the new snapshot
+     */
+    public ChangesIterator(Path root, DirectorySnapshot snapshot, Consumer<DirectorySnapshot> updated, boolean emit) {
+        this.snapshot = snapshot;
+        this.updated = updated;
+        this.emit = emit;
+        this.recorded = updated == null ? null : new HashMap<>();
+
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(root, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        directories.push(new DirectoryItem("", root, attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS)));
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (changes.isEmpty()) {
+            final DirectoryItem directory = directories.poll();
+            if (directory == null) {
+                if (recorded != null && !finished) {
+                    finished = true;
+                    updated.accept(new DirectorySnapshot(time, recorded));
+                }
+                return false;
+            }
+            process(directory);
+        }
+
+        return true;
+    }
+
+    @Override
+    public PathChange next() {
+        if (hasNext()) {
+            return changes.poll();
+        } else {
+            throw new NoSuchElementException();
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    protected void process(DirectoryItem item) {
+        final DirectorySnapshot.Directory old = snapshot.getDirectory(item.relative);
+        final Map<String, DirectorySnapshot.Entry> children = new HashMap<>();
+
+        if (old != null && old.getModified() == item.modified
+                && TimeUnit.NANOSECONDS.toMillis(item.modified) + RACY_MILLIS < snapshot.getTime()) {
+            for (String name : old.getChildren().keySet()) {
+                visit(item, name, item.directory.resolve(name), old, children);
+            }
+        } else {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(item.directory)) {
+                for (Path path : stream) {
+                    visit(item, path.getFileName().toString(), path, old, children);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        if (old != null) {
+            for (Map.Entry<String, DirectorySnapshot.Entry> child : old.getChildren().entrySet()) {
+                if (!children.containsKey(child.getKey())) {
+                    deleted(item.directory.resolve(child.getKey()), relative(item.relative, child.getKey()), child.getValue());
+                }
+            }
+        }
+
+        if (recorded != null) {
+            recorded.put(item.relative, new DirectorySnapshot.Directory(item.modified, children));
+        }
+    }
+
+    protected void visit(DirectoryItem item, String name, Path path, DirectorySnapshot.Directory old, Map<String, DirectorySnapshot.Entry> children) {
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        final DirectorySnapshot.Entry entry = DirectorySnapshot.Entry.of(attributes);
+        final DirectorySnapshot.Entry before = old == null ? null : old.getChildren().get(name);
+        final String relative = relative(item.relative, name);
+        children.put(name, entry);
+
+        if (before == null) {
+            emit(PathChange.Type.ADDED, path, attributes);
+        } else if (before.isDirectory() != entry.isDirectory()) {
+            deleted(path, relative, before);
+            emit(PathChange.Type.ADDED, path, attributes);
+        } else if (!entry.isDirectory() && !entry.equals(before)) {
+            emit(PathChange.Type.MODIFIED, path, attributes);
+        }
+
+        if (entry.isDirectory()) {
+            directories.push(new DirectoryItem(relative, path, entry.getModified()));
+        }
+    }
+
+    protected void deleted(Path path, String relative, DirectorySnapshot.Entry entry) {
+        if (!emit) {
+            return;
+        }
+
+        changes.add(new PathChange(PathChange.Type.DELETED, path, entry.isDirectory(), null));
+        if (entry.isDirectory()) {
+            final DirectorySnapshot.Directory directory = snapshot.getDirectory(relative);
+            if (directory != null) {
+                for (Map.Entry<String, DirectorySnapshot.Entry> child : directory.getChildren().entrySet()) {
+                    deleted(path.resolve(child.getKey()), relative(relative, child.getKey()), child.getValue());
+                }
+            }
+        }
+    }
+
+    private void emit(PathChange.Type type, Path path, BasicFileAttributes attributes) {
+        if (emit) {
+            changes.add(new PathChange(type, path, attributes.isDirectory(), attributes));
+        }
+    }
+
+    private static String relative(String parent, String name) {
+        return parent.isEmpty() ? name : parent + '/' + name;
+    }
+
+    static class DirectoryItem {
+        final String relative;
+        final Path directory;
+        final long modified;
+
+        DirectoryItem(String relative, Path directory, long modified) {
+            this.relative = relative;
+            this.directory = directory;
+            this.modified = modified;
+        }
+    }
+}
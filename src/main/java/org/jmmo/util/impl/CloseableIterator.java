@@ -0,0 +1,13 @@
+package org.jmmo.util.impl;
+
+import java.util.Iterator;
+
+/**
+ * Iterator holding resources which are released by {@link #close()} if the iteration is not finished.
+ * @param <T> type of elements
+ */
+public interface CloseableIterator<T> extends Iterator<T>, AutoCloseable {
+
+    @Override
+    void close();
+}
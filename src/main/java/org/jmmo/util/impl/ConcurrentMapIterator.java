@@ -0,0 +1,121 @@
+package org.jmmo.util.impl;
+
+import org.jmmo.util.Cancelable;
+import org.jmmo.util.StreamUtil;
+
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+
+/**
+ * Maps elements of the source iterator by the executor keeping at most the given number of tasks in flight.
+ * The source is read by the consumer thread only. Results are returned in the source order
+ * or in the order of completion. Exceptions of the mapper are rethrown as they are.
+ * @param <T> type of source elements
+ * @param <R> type of results
+ */
+public class ConcurrentMapIterator<T, R> implements Iterator<R>, Cancelable {
+    private final Iterator<T> source;
+    private final int parallelism;
+    private final boolean ordered;
+    private final Executor executor;
+    private final Function<? super T, ? extends R> mapper;
+    private final Deque<Task> inFlight = new ConcurrentLinkedDeque<>();
+    private final BlockingQueue<Task> completed = new LinkedBlockingQueue<>();
+    private final Task canceledMarker = new Task(null);
+    private volatile boolean canceled;
+
+    public ConcurrentMapIterator(Iterator<T> source, int parallelism, boolean ordered, Executor executor, Function<? super T, ? extends R> mapper) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.source = source;
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+        this.executor = executor;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!canceled && inFlight.size() < parallelism && source.hasNext()) {
+            final T element = source.next();
+            final Task task = new Task(element);
+            inFlight.add(task);
+            try {
+                executor.execute(task);
+            } catch (RuntimeException e) {
+                cancel();
+                throw e;
+            }
+        }
+        return !canceled && !inFlight.isEmpty();
+    }
+
+    @Override
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final Task task;
+        try {
+            task = ordered ? inFlight.peek() : completed.take();
+            // cancel() from another thread clears the tasks in flight after hasNext() has seen them
+            if (task == null || task == canceledMarker || canceled) {
+                throw new CancellationException();
+            }
+            try {
+                return task.get();
+            } finally {
+                inFlight.remove(task);
+            }
+        } catch (ExecutionException e) {
+            cancel();
+            return StreamUtil.sneakyThrow(e.getCause());
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            return StreamUtil.sneakyThrow(e);
+        } catch (CancellationException e) {
+            cancel();
+            return StreamUtil.sneakyThrow(e);
+        }
+    }
+
+    /**
+     * Cancels the tasks in flight interrupting them and stops reading the source.
+     * Can be called from any thread, the consumer waiting for a result gets {@link CancellationException}.
+     */
+    @Override
+    public void cancel() {
+        canceled = true;
+        for (Task task : inFlight) {
+            task.cancel(true);
+        }
+        inFlight.clear();
+        completed.clear();
+        completed.add(canceledMarker);
+    }
+
+    class Task extends FutureTask<R> {
+        Task(T element) {
+            super(() -> mapper.apply(element));
+        }
+
+        @Override
+        protected void done() {
+            if (!ordered && !isCancelled()) {
+                completed.add(this);
+            }
+        }
+    }
+}
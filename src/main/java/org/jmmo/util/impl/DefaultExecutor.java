@@ -0,0 +1,29 @@
+package org.jmmo.util.impl;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Executor for blocking tasks: virtual thread per task on JDK 21+, shared cached pool of daemon threads otherwise
+ */
+public final class DefaultExecutor {
+    private static final Executor INSTANCE = create();
+
+    private DefaultExecutor() {}
+
+    public static Executor get() {
+        return INSTANCE;
+    }
+
+    private static Executor create() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                final Thread thread = new Thread(runnable, "stream-util");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
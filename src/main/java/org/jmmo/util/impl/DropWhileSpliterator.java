@@ -0,0 +1,77 @@
+package org.jmmo.util.impl;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Spliterator over the source elements remaining after the longest prefix which matches the predicate.
+ * Whether an element is dropped depends on all the elements before it, so the spliterator is not split
+ * until the prefix is dropped and a parallel pipeline, which splits before traversal, processes it sequentially.
+ */
+public class DropWhileSpliterator<T> implements Spliterator<T>, Consumer<T> {
+    private final Spliterator<T> source;
+    private final Predicate<? super T> predicate;
+    private boolean dropping = true;
+    private T current;
+
+    public DropWhileSpliterator(Spliterator<T> source, Predicate<? super T> predicate) {
+        this.source = source;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (!dropping) {
+            return source.tryAdvance(action);
+        }
+        while (source.tryAdvance(this)) {
+            if (!predicate.test(current)) {
+                dropping = false;
+                final T element = current;
+                current = null;
+                action.accept(element);
+                return true;
+            }
+        }
+        dropping = false;
+        current = null;
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        if (!dropping || tryAdvance(action)) {
+            source.forEachRemaining(action);
+        }
+    }
+
+    @Override
+    public void accept(T element) {
+        current = element;
+    }
+
+    /**
+     * @return null while the prefix is being dropped, a split of the source afterwards
+     */
+    @Override
+    public Spliterator<T> trySplit() {
+        return dropping ? null : source.trySplit();
+    }
+
+    @Override
+    public long estimateSize() {
+        return source.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return source.characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+    }
+
+    @Override
+    public Comparator<? super T> getComparator() {
+        return source.getComparator();
+    }
+}
@@ -7,11 +7,13 @@ import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
-public class FilesIterator implements Iterator<Path> {
-    private final DirectoryStream.Filter<Path> filter;
-    private DirectoryStream<Path> currentStream;
-    private Iterator<Path> currentIterator;
+public class FilesIterator implements CloseableIterator<Path> {
+    protected final DirectoryStream.Filter<Path> filter;
+    private final boolean emitDirectories;
+    protected DirectoryStream<Path> currentStream;
+    protected Iterator<Path> currentIterator;
     private boolean prepared;
+    private boolean closed;
     protected Path current;
     protected DirectoryItem lastDirectory;
     protected DirectoryItem directories;
@@ -21,7 +23,15 @@ public class FilesIterator implements Iterator<Path> {
     }
 
     public FilesIterator(Path directory, DirectoryStream.Filter<Path> filter) {
+        this(directory, filter, true);
+    }
+
+    /**
+     * @param emitDirectories if false the directories are walked but not returned by the iterator
+     */
+    public FilesIterator(Path directory, DirectoryStream.Filter<Path> filter, boolean emitDirectories) {
         this.filter = filter;
+        this.emitDirectories = emitDirectories;
         initStream(new DirectoryItem(directory, null));
     }
 
@@ -37,12 +47,15 @@ public class FilesIterator implements Iterator<Path> {
 
     @Override
     public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
         while (!prepared) {
             current = null;
             if (currentIterator.hasNext()) {
                 current = currentIterator.next();
-                if (Files.isDirectory(current)) {
-                    directories = new DirectoryItem(current, directories);
+                if (isDirectory(current)) {
+                    pushDirectory(current);
                 } else {
                     prepared = true;
                 }
@@ -58,26 +71,50 @@ public class FilesIterator implements Iterator<Path> {
         return current != null;
     }
 
+    protected void pushDirectory(Path directory) {
+        directories = new DirectoryItem(directory, directories);
+    }
+
     protected void pollNextDirectory() {
         if (directories == null) {
             prepared = true;
         } else if (directories.processed) {
             current = directories.directory;
-            prepared = true;
+            prepared = emitDirectories;
             directories = directories.next;
         } else {
             initStream(directories);
         }
     }
 
+    protected boolean isDirectory(Path path) {
+        return Files.isDirectory(path);
+    }
+
     protected void closeStream() {
+        if (currentStream == null) {
+            return;
+        }
         try {
             currentStream.close();
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            currentStream = null;
         }
     }
 
+    /**
+     * Closes the current directory stream, the iterator has no more elements after that
+     */
+    @Override
+    public void close() {
+        closed = true;
+        directories = null;
+        currentIterator = null;
+        closeStream();
+    }
+
     @Override
     public Path next() {
         if (hasNext()) {
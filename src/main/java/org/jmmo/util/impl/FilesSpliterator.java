@@ -0,0 +1,205 @@
+package org.jmmo.util.impl;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Splittable walker over a directory tree. Pending subdirectories are kept in a stack,
+ * the deepest ones are walked by this spliterator and the shallowest ones are handed off
+ * to other fork-join workers by {@link #trySplit()}.
+ * Directories accepted by the filter are emitted and walked, the root directory itself is not emitted.
+ * {@link #close()} closes the directory streams opened by this spliterator and all the split ones.
+ */
+public class FilesSpliterator implements Spliterator<Path>, AutoCloseable {
+    static final int BATCH_SIZE = 1024;
+
+    private final DirectoryStream.Filter<Path> filter;
+    private final Deque<Path> directories;
+    private final Deque<Path> entries = new ArrayDeque<>();
+    private final Resources resources;
+    private DirectoryStream<Path> currentStream;
+    private Iterator<Path> currentIterator;
+
+    public FilesSpliterator(Path directory) {
+        this(directory, (path) -> true);
+    }
+
+    public FilesSpliterator(Path directory, DirectoryStream.Filter<Path> filter) {
+        this(filter, new ArrayDeque<>(), new Resources());
+        directories.push(directory);
+    }
+
+    protected FilesSpliterator(DirectoryStream.Filter<Path> filter, Deque<Path> directories, Resources resources) {
+        this.filter = filter;
+        this.directories = directories;
+        this.resources = resources;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Path> action) {
+        while (!resources.closed) {
+            final Path entry = entries.poll();
+            if (entry != null) {
+                action.accept(entry);
+                return true;
+            }
+
+            if (currentIterator != null) {
+                if (currentIterator.hasNext()) {
+                    action.accept(read());
+                    return true;
+                }
+                closeStream();
+            }
+
+            final Path directory = directories.poll();
+            if (directory == null) {
+                return false;
+            }
+            initStream(directory);
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<Path> trySplit() {
+        while (!resources.closed) {
+            if (directories.isEmpty() && currentIterator != null) {
+                readAhead();
+            }
+
+            if (directories.size() > 1 || !directories.isEmpty() && (!entries.isEmpty() || currentIterator != null)) {
+                final Deque<Path> prefix = new ArrayDeque<>();
+                for (int i = 0, n = Math.max(directories.size() / 2, 1); i < n; i++) {
+                    prefix.push(directories.pollLast());
+                }
+                return new FilesSpliterator(filter, prefix, resources);
+            }
+
+            if (directories.isEmpty()) {
+                if (entries.size() > 1 && currentIterator != null) {
+                    final Path[] batch = entries.toArray(new Path[0]);
+                    entries.clear();
+                    return Spliterators.spliterator(batch, characteristics());
+                }
+                return null;
+            }
+
+            // the only work left is a single directory, so descend into it looking for something to split
+            initStream(directories.poll());
+        }
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return entries.isEmpty() && currentIterator == null && directories.isEmpty() ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.NONNULL | Spliterator.DISTINCT;
+    }
+
+    protected void initStream(Path directory) {
+        try {
+            currentStream = Files.newDirectoryStream(directory, filter);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        currentIterator = currentStream.iterator();
+        resources.open(currentStream);
+    }
+
+    protected void closeStream() {
+        currentIterator = null;
+        try {
+            resources.close(currentStream);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            currentStream = null;
+        }
+    }
+
+    /**
+     * Reads the current directory until a subdirectory is found or a batch of entries is buffered
+     */
+    protected void readAhead() {
+        while (currentIterator.hasNext()) {
+            entries.add(read());
+            if (!directories.isEmpty() || entries.size() >= BATCH_SIZE) {
+                return;
+            }
+        }
+        closeStream();
+    }
+
+    /**
+     * Closes all the directory streams of the walk, can be called from any thread.
+     * The walk stops at the next directory or element after that.
+     */
+    @Override
+    public void close() {
+        resources.closeAll();
+    }
+
+    private Path read() {
+        final Path path = currentIterator.next();
+        if (Files.isDirectory(path)) {
+            directories.push(path);
+        }
+        return path;
+    }
+
+    /**
+     * Directory streams opened by a spliterator and the ones split from it
+     */
+    protected static class Resources {
+        private final Set<DirectoryStream<Path>> streams = ConcurrentHashMap.newKeySet();
+        private volatile boolean closed;
+
+        void open(DirectoryStream<Path> stream) {
+            streams.add(stream);
+            if (closed) {
+                // closeAll may have missed the stream
+                closeAll();
+            }
+        }
+
+        void close(DirectoryStream<Path> stream) throws IOException {
+            streams.remove(stream);
+            stream.close();
+        }
+
+        void closeAll() {
+            closed = true;
+            RuntimeException exception = null;
+            for (DirectoryStream<Path> stream : streams) {
+                streams.remove(stream);
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    if (exception == null) {
+                        exception = new RuntimeException(e);
+                    } else {
+                        exception.addSuppressed(e);
+                    }
+                }
+            }
+            if (exception != null) {
+                throw exception;
+            }
+        }
+    }
+}
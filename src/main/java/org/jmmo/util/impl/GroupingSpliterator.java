@@ -0,0 +1,67 @@
+package org.jmmo.util.impl;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator which groups consecutive elements of the source.
+ * It is split by reading a number of groups ahead, so groups are the same as in sequential traversal
+ * and never cross a split boundary, whether the source is ordered or not.
+ * @param <T> type of source elements
+ * @param <R> type of groups
+ */
+public abstract class GroupingSpliterator<T, R> implements Spliterator<R>, Consumer<T> {
+    static final int SPLIT_GROUPS = 64;
+
+    protected final Spliterator<T> source;
+    protected T element;
+
+    protected GroupingSpliterator(Spliterator<T> source) {
+        this.source = source;
+    }
+
+    /**
+     * @param copy true if the group is kept by the caller, so a reused buffer must not be returned
+     * @return the next group or null if there are no more groups
+     */
+    protected abstract R group(boolean copy);
+
+    /**
+     * Advances the source and stores its element into {@link #element}
+     */
+    protected boolean advance() {
+        return source.tryAdvance(this);
+    }
+
+    @Override
+    public void accept(T element) {
+        this.element = element;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super R> action) {
+        final R group = group(false);
+        if (group == null) {
+            return false;
+        }
+        action.accept(group);
+        return true;
+    }
+
+    @Override
+    public Spliterator<R> trySplit() {
+        final Object[] groups = new Object[SPLIT_GROUPS];
+        int j = 0;
+        R group;
+        while (j < groups.length && (group = group(true)) != null) {
+            groups[j++] = group;
+        }
+        return j == 0 ? null : Spliterators.spliterator(groups, 0, j, characteristics() | SIZED | SUBSIZED);
+    }
+
+    @Override
+    public int characteristics() {
+        return source.characteristics() & ORDERED | NONNULL;
+    }
+}
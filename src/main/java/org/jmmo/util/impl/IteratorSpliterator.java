@@ -0,0 +1,82 @@
+package org.jmmo.util.impl;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over an iterator with a known size or an estimate which splits off batches of a fixed size
+ * @param <T> type of elements
+ */
+public class IteratorSpliterator<T> implements Spliterator<T> {
+    private final Iterator<? extends T> iterator;
+    private final int characteristics;
+    private final int batchSize;
+    private long estimate;
+
+    /**
+     * @param estimate exact size if characteristics have {@link Spliterator#SIZED}, estimate otherwise, Long.MAX_VALUE if unknown
+     * @param batchSize number of elements to split off
+     */
+    public IteratorSpliterator(Iterator<? extends T> iterator, long estimate, int batchSize, int characteristics) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.iterator = iterator;
+        this.estimate = estimate;
+        this.batchSize = batchSize;
+        this.characteristics = (characteristics & Spliterator.CONCURRENT) == 0 && (characteristics & Spliterator.SIZED) != 0
+                ? characteristics | Spliterator.SUBSIZED
+                : characteristics & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (iterator.hasNext()) {
+            action.accept(iterator.next());
+            decrement(1);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        iterator.forEachRemaining(action);
+        estimate = 0;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (estimate <= 1 || !iterator.hasNext()) {
+            return null;
+        }
+
+        final int n = (int) Math.min(batchSize, estimate);
+        final Object[] batch = new Object[n];
+        int j = 0;
+        do {
+            batch[j] = iterator.next();
+        } while (++j < n && iterator.hasNext());
+        decrement(j);
+
+        return Spliterators.spliterator(batch, 0, j, characteristics | Spliterator.SIZED | Spliterator.SUBSIZED);
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return characteristics;
+    }
+
+    private void decrement(int count) {
+        if (estimate != Long.MAX_VALUE) {
+            estimate = Math.max(estimate - count, 0);
+        }
+    }
+}
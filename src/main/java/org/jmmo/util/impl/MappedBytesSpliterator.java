@@ -0,0 +1,39 @@
+package org.jmmo.util.impl;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Spliterator over delimited records of a memory mapped file passed as reused read only byte buffer views
+ */
+public class MappedBytesSpliterator extends MappedRecordSpliterator<ByteBuffer> {
+    private MappedByteBuffer viewed;
+    private ByteBuffer view;
+
+    public MappedBytesSpliterator(FileChannel channel, byte delimiter, long position, long end) {
+        this(channel, delimiter, position, end, WINDOW_SIZE);
+    }
+
+    public MappedBytesSpliterator(FileChannel channel, byte delimiter, long position, long end, int windowSize) {
+        super(channel, delimiter, position, end, windowSize);
+    }
+
+    @Override
+    protected ByteBuffer record(MappedByteBuffer window, int offset, int length) {
+        if (viewed != window) {
+            viewed = window;
+            view = window.asReadOnlyBuffer();
+        }
+        // through Buffer to stay binary compatible with Java 8 where ByteBuffer does not override these methods
+        ((Buffer) view).limit(offset + length);
+        ((Buffer) view).position(offset);
+        return view;
+    }
+
+    @Override
+    protected MappedRecordSpliterator<ByteBuffer> split(long position, long end) {
+        return new MappedBytesSpliterator(channel, delimiter, position, end, windowSize);
+    }
+}
@@ -0,0 +1,33 @@
+package org.jmmo.util.impl;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Spliterator over lines of a memory mapped file passed as reused char sequence views.
+ * Line terminators are '\n' and "\r\n", the bytes are seen as ISO-8859-1 chars.
+ */
+public class MappedLinesSpliterator extends MappedRecordSpliterator<CharSequence> {
+    private final ByteCharSequence view = new ByteCharSequence();
+
+    public MappedLinesSpliterator(FileChannel channel, long position, long end) {
+        this(channel, position, end, WINDOW_SIZE);
+    }
+
+    public MappedLinesSpliterator(FileChannel channel, long position, long end, int windowSize) {
+        super(channel, (byte) '\n', position, end, windowSize);
+    }
+
+    @Override
+    protected CharSequence record(MappedByteBuffer window, int offset, int length) {
+        if (length > 0 && window.get(offset + length - 1) == '\r') {
+            length--;
+        }
+        return view.wrap(window, offset, length);
+    }
+
+    @Override
+    protected MappedRecordSpliterator<CharSequence> split(long position, long end) {
+        return new MappedLinesSpliterator(channel, position, end, windowSize);
+    }
+}
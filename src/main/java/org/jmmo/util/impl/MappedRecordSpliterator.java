@@ -0,0 +1,148 @@
+package org.jmmo.util.impl;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over delimited records of a memory mapped file region.
+ * The file is mapped by windows which are moved along the region, so files larger than 2GB are supported
+ * as long as a single record fits into 2GB. Splitting happens at delimiter boundaries.
+ * Records are passed as views of the mapped window which are reused and valid only inside the action.
+ * @param <T> type of a record view
+ */
+public abstract class MappedRecordSpliterator<T> implements Spliterator<T> {
+    static final int WINDOW_SIZE = 1 << 28;
+    static final int MIN_SPLIT_SIZE = 1 << 16;
+
+    protected final FileChannel channel;
+    protected final byte delimiter;
+    protected final int windowSize;
+    private long position;
+    private final long end;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    /**
+     * @param windowSize size of the mapped window, it is grown only for a record longer than it
+     */
+    protected MappedRecordSpliterator(FileChannel channel, byte delimiter, long position, long end, int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        this.channel = channel;
+        this.delimiter = delimiter;
+        this.windowSize = windowSize;
+        this.position = position;
+        this.end = end;
+    }
+
+    /**
+     * @param window mapped window
+     * @param offset record offset inside the window
+     * @param length record length without the delimiter
+     * @return view of the record
+     */
+    protected abstract T record(MappedByteBuffer window, int offset, int length);
+
+    protected abstract MappedRecordSpliterator<T> split(long position, long end);
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (position >= end) {
+            return false;
+        }
+
+        if (window == null || position < windowStart || position >= windowStart + window.limit()) {
+            slide((int) Math.min(windowSize, end - position));
+        }
+        long scanned = position;
+        while (true) {
+            final int from = (int) (position - windowStart);
+            final int to = (int) Math.min(window.limit(), end - windowStart);
+            for (int i = (int) (scanned - windowStart); i < to; i++) {
+                if (window.get(i) == delimiter) {
+                    position = windowStart + i + 1;
+                    action.accept(record(window, from, i - from));
+                    return true;
+                }
+            }
+
+            if (windowStart + to >= end) {
+                position = end;
+                action.accept(record(window, from, to - from));
+                return true;
+            }
+
+            // the record crosses the window end, the window is moved to the record start and grown if the record is longer
+            scanned = windowStart + to;
+            final long covered = scanned - position;
+            if (covered >= Integer.MAX_VALUE) {
+                throw new IllegalStateException("Record at " + position + " is longer than " + Integer.MAX_VALUE + " bytes");
+            }
+            slide((int) Math.min(Math.min(Math.max(windowSize, covered * 2), Integer.MAX_VALUE), end - position));
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        final long remaining = end - position;
+        if (remaining < MIN_SPLIT_SIZE) {
+            return null;
+        }
+
+        final long middle = position + remaining / 2;
+        final MappedByteBuffer buffer;
+        final long bufferStart;
+        if (window != null && windowStart <= middle && windowStart + window.limit() > middle) {
+            buffer = window;
+            bufferStart = windowStart;
+        } else {
+            buffer = map(middle, (int) Math.min(windowSize, end - middle));
+            bufferStart = middle;
+        }
+
+        final int to = (int) Math.min(buffer.limit(), end - bufferStart);
+        for (int i = (int) (middle - bufferStart); i < to; i++) {
+            if (buffer.get(i) == delimiter) {
+                final long split = bufferStart + i + 1;
+                if (split >= end) {
+                    return null;
+                }
+                final MappedRecordSpliterator<T> prefix = split(position, split);
+                position = split;
+                return prefix;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - position;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    private void slide(int size) {
+        window = map(position, size);
+        windowStart = position;
+    }
+
+    /**
+     * Maps a region of the file read only
+     */
+    protected MappedByteBuffer map(long start, int size) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
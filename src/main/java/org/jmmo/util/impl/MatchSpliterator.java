@@ -0,0 +1,96 @@
+package org.jmmo.util.impl;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Spliterator over regular expression matches that passes the matcher itself as a match result.
+ * When it is created from a pattern and an input it splits the input at line boundaries,
+ * every part is matched by its own matcher, so matches must not span lines.
+ */
+public class MatchSpliterator implements Spliterator<MatchResult> {
+    static final int MIN_SPLIT_SIZE = 1 << 12;
+
+    private final Pattern pattern;
+    private final CharSequence input;
+    private final Matcher matcher;
+    private int start;
+    private final int end;
+    private boolean started;
+
+    /**
+     * Creates not splittable spliterator
+     */
+    public MatchSpliterator(Matcher matcher) {
+        this.pattern = null;
+        this.input = null;
+        this.matcher = matcher;
+        this.start = 0;
+        this.end = 0;
+    }
+
+    public MatchSpliterator(Pattern pattern, CharSequence input) {
+        this(pattern, input, 0, input.length());
+    }
+
+    protected MatchSpliterator(Pattern pattern, CharSequence input, int start, int end) {
+        this.pattern = pattern;
+        this.input = input;
+        this.matcher = region(pattern.matcher(input), start, end);
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super MatchResult> action) {
+        started = true;
+        if (matcher.find()) {
+            action.accept(matcher);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super MatchResult> action) {
+        started = true;
+        while (matcher.find()) {
+            action.accept(matcher);
+        }
+    }
+
+    @Override
+    public Spliterator<MatchResult> trySplit() {
+        if (pattern == null || started || end - start < MIN_SPLIT_SIZE) {
+            return null;
+        }
+
+        for (int i = start + (end - start) / 2; i < end - 1; i++) {
+            if (input.charAt(i) == '\n') {
+                final MatchSpliterator prefix = new MatchSpliterator(pattern, input, start, i + 1);
+                start = i + 1;
+                region(matcher, start, end);
+                return prefix;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return pattern == null ? Long.MAX_VALUE : end - start;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    private static Matcher region(Matcher matcher, int start, int end) {
+        return matcher.region(start, end).useTransparentBounds(true).useAnchoringBounds(false);
+    }
+}
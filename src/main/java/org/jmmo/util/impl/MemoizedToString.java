@@ -0,0 +1,79 @@
+package org.jmmo.util.impl;
+
+import org.jmmo.util.LazyToString;
+
+import java.util.function.Supplier;
+
+/**
+ * Lazy string that remembers the result of the supplier according to the policy and truncates long results
+ */
+public class MemoizedToString extends LazyToString {
+    private final LazyToString.Policy policy;
+    private final long expirationNanos;
+    private final int maxLength;
+    private final ThreadLocal<String> perThread;
+    private volatile String value;
+    private volatile long computed;
+
+    public MemoizedToString(Supplier<?> supplier, LazyToString.Policy policy, long expirationNanos, int maxLength) {
+        super(supplier);
+        this.policy = policy;
+        this.expirationNanos = expirationNanos;
+        this.maxLength = maxLength;
+        this.perThread = policy == LazyToString.Policy.PER_THREAD ? ThreadLocal.withInitial(this::compute) : null;
+    }
+
+    @Override
+    public String toString() {
+        switch (policy) {
+            case ONCE:
+                return once();
+            case PER_THREAD:
+                return perThread.get();
+            case EXPIRING:
+                return expiring();
+            default:
+                return compute();
+        }
+    }
+
+    private String once() {
+        String result = value;
+        if (result == null) {
+            synchronized (this) {
+                result = value;
+                if (result == null) {
+                    value = result = compute();
+                }
+            }
+        }
+        return result;
+    }
+
+    private String expiring() {
+        String result = value;
+        if (result == null || System.nanoTime() - computed >= expirationNanos) {
+            synchronized (this) {
+                result = value;
+                if (result == null || System.nanoTime() - computed >= expirationNanos) {
+                    result = compute();
+                    // the time is written first so a reader seeing the new value does not see the old time
+                    computed = System.nanoTime();
+                    value = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    protected String compute() {
+        return truncate(String.valueOf(getSupplier().get()), maxLength);
+    }
+
+    static String truncate(String string, int maxLength) {
+        if (string.length() <= maxLength) {
+            return string;
+        }
+        return string.substring(0, maxLength) + "...(" + string.length() + " chars)";
+    }
+}
@@ -0,0 +1,162 @@
+package org.jmmo.util.impl;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Files iterator that reads the next pending directories ahead of the consumer using the given executor.
+ * The directories are walked from the top of the stack, so the listings are kept for the top {@code prefetch} of them.
+ * At most {@code prefetch} directory listings are held at any moment, so memory stays bounded.
+ * Every entry is checked for being a directory once while listing, directories are always walked
+ * and the filter is applied to files only. The filter is called from the executor threads.
+ */
+public class PrefetchFilesIterator extends FilesIterator {
+    private final int prefetch;
+    private final Executor executor;
+    private final Map<DirectoryItem, CompletableFuture<Listing>> scheduled = new IdentityHashMap<>();
+    private Set<Path> currentDirectories;
+
+    public PrefetchFilesIterator(Path directory, DirectoryStream.Filter<Path> filter, boolean emitDirectories, int prefetch, Executor executor) {
+        super(directory, filter, emitDirectories);
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("Prefetch must be positive: " + prefetch);
+        }
+        this.prefetch = prefetch;
+        this.executor = executor;
+    }
+
+    /**
+     * @return virtual thread per task executor on JDK 21+, shared cached pool of daemon threads otherwise
+     */
+    public static Executor defaultExecutor() {
+        return DefaultExecutor.get();
+    }
+
+    @Override
+    protected void pushDirectory(Path directory) {
+        super.pushDirectory(directory);
+        schedule();
+    }
+
+    @Override
+    protected void pollNextDirectory() {
+        super.pollNextDirectory();
+        schedule();
+    }
+
+    /**
+     * Keeps listings scheduled for the top {@code prefetch} pending directories of the stack, they are walked next.
+     * Listings of directories pushed below them by newer siblings are cancelled and dropped, they are read again when reached.
+     */
+    protected void schedule() {
+        int pending = 0;
+        for (DirectoryItem item = directories; item != null && pending < prefetch; item = item.next) {
+            if (!item.processed) {
+                pending++;
+                if (!scheduled.containsKey(item)) {
+                    final Path directory = item.directory;
+                    scheduled.put(item, CompletableFuture.supplyAsync(() -> list(directory), executor));
+                }
+            }
+        }
+
+        if (scheduled.size() > prefetch) {
+            final Iterator<Map.Entry<DirectoryItem, CompletableFuture<Listing>>> iterator = scheduled.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<DirectoryItem, CompletableFuture<Listing>> entry = iterator.next();
+                if (!isNext(entry.getKey())) {
+                    entry.getValue().cancel(false);
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the directory is one of the top {@code prefetch} pending directories
+     */
+    private boolean isNext(DirectoryItem directoryItem) {
+        int pending = 0;
+        for (DirectoryItem item = directories; item != null && pending < prefetch; item = item.next) {
+            if (!item.processed) {
+                if (item == directoryItem) {
+                    return true;
+                }
+                pending++;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void initStream(DirectoryItem directoryItem) {
+        // called from the super constructor for the root directory before the fields are initialized
+        final CompletableFuture<Listing> future = scheduled == null ? null : scheduled.remove(directoryItem);
+        final Listing listing;
+        if (future == null) {
+            listing = list(directoryItem.directory);
+        } else {
+            try {
+                listing = future.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+            }
+        }
+        currentStream = null;
+        currentIterator = listing.entries.iterator();
+        currentDirectories = listing.directories;
+        lastDirectory = directoryItem;
+    }
+
+    @Override
+    protected boolean isDirectory(Path path) {
+        return currentDirectories == null ? super.isDirectory(path) : currentDirectories.contains(path);
+    }
+
+    /**
+     * Also cancels the scheduled listings, the listings being read close their streams by themselves
+     */
+    @Override
+    public void close() {
+        for (CompletableFuture<Listing> future : scheduled.values()) {
+            future.cancel(false);
+        }
+        scheduled.clear();
+        currentDirectories = null;
+        super.close();
+    }
+
+    protected Listing list(Path directory) {
+        final Listing listing = new Listing();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                if (Files.isDirectory(path)) {
+                    listing.entries.add(path);
+                    listing.directories.add(path);
+                } else if (filter.accept(path)) {
+                    listing.entries.add(path);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return listing;
+    }
+
+    static class Listing {
+        final List<Path> entries = new ArrayList<>();
+        final Set<Path> directories = new HashSet<>();
+    }
+}
@@ -0,0 +1,67 @@
+package org.jmmo.util.impl;
+
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over a random access list which splits it by indexes
+ * @param <T> type of elements
+ */
+public class RandomAccessSpliterator<T> implements Spliterator<T> {
+    private final List<T> list;
+    private int index;
+    private final int fence;
+
+    /**
+     * @param list list implementing {@link RandomAccess}
+     */
+    public RandomAccessSpliterator(List<T> list) {
+        this(list, 0, list.size());
+    }
+
+    protected RandomAccessSpliterator(List<T> list, int index, int fence) {
+        this.list = list;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (index < fence) {
+            action.accept(list.get(index++));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        for (int i = index; i < fence; i++) {
+            action.accept(list.get(i));
+        }
+        index = fence;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        final int middle = (index + fence) >>> 1;
+        if (middle <= index) {
+            return null;
+        }
+        final RandomAccessSpliterator<T> prefix = new RandomAccessSpliterator<>(list, index, middle);
+        index = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED;
+    }
+}
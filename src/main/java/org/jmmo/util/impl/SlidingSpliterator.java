@@ -0,0 +1,69 @@
+package org.jmmo.util.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+
+/**
+ * Emits full windows of the given size which start every step elements
+ * @param <T> type of elements
+ */
+public class SlidingSpliterator<T> extends GroupingSpliterator<T, List<T>> {
+    private final int window;
+    private final int step;
+    private final boolean reuse;
+    private final List<T> elements;
+    private final List<T> view;
+    private boolean started;
+    private boolean finished;
+
+    /**
+     * @param reuse if true the same list is returned for every window
+     */
+    public SlidingSpliterator(Spliterator<T> source, int window, int step, boolean reuse) {
+        super(source);
+        if (window < 1 || step < 1) {
+            throw new IllegalArgumentException("Window and step must be positive: " + window + ", " + step);
+        }
+        this.window = window;
+        this.step = step;
+        this.reuse = reuse;
+        this.elements = new ArrayList<>(window);
+        this.view = Collections.unmodifiableList(elements);
+    }
+
+    @Override
+    protected List<T> group(boolean copy) {
+        if (finished) {
+            return null;
+        }
+
+        if (started) {
+            elements.subList(0, Math.min(step, window)).clear();
+            for (int i = window; i < step; i++) {
+                if (!advance()) {
+                    finished = true;
+                    return null;
+                }
+            }
+        }
+        started = true;
+
+        while (elements.size() < window) {
+            if (!advance()) {
+                finished = true;
+                return null;
+            }
+            elements.add(element);
+        }
+
+        return reuse && !copy ? view : new ArrayList<>(elements);
+    }
+
+    @Override
+    public long estimateSize() {
+        final long estimate = source.estimateSize();
+        return estimate == Long.MAX_VALUE ? estimate : estimate / step + 1;
+    }
+}
@@ -0,0 +1,136 @@
+package org.jmmo.util.impl;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Walks a directory tree in a deterministic order. Entries of every directory are sorted by their file names,
+ * subdirectories are walked in place, so their entries go right after them in pre-order or right before them in post-order.
+ * Every directory is read fully and closed before its entries are returned, only the sorted listings of the directories
+ * on the current path are kept in memory. Directories are always walked, entries are returned if they match the filter,
+ * the root directory itself is not returned.
+ */
+public class SortedFilesSpliterator extends Spliterators.AbstractSpliterator<Path> {
+    private final Comparator<Path> names;
+    private final DirectoryStream.Filter<Path> filter;
+    private final boolean emitDirectories;
+    private final boolean postOrder;
+    private final Comparator<Path> order;
+    private final Deque<Frame> frames = new ArrayDeque<>();
+
+    /**
+     * @param names comparator of file names
+     * @param emitDirectories if false the directories are walked but not returned
+     * @param postOrder true to return directories after their entries
+     */
+    public SortedFilesSpliterator(Path directory, Comparator<Path> names, DirectoryStream.Filter<Path> filter, boolean emitDirectories, boolean postOrder) {
+        super(Long.MAX_VALUE, Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.ORDERED | Spliterator.SORTED);
+        this.names = names;
+        this.filter = filter;
+        this.emitDirectories = emitDirectories;
+        this.postOrder = postOrder;
+        this.order = treeOrder(names, postOrder);
+        frames.push(new Frame(null, list(directory)));
+    }
+
+    /**
+     * @return comparator of paths in the order of the walk, paths are compared by names from the beginning,
+     * an ancestor goes before its descendants in pre-order and after them in post-order
+     */
+    public static Comparator<Path> treeOrder(Comparator<Path> names, boolean postOrder) {
+        return (first, second) -> {
+            final int common = Math.min(first.getNameCount(), second.getNameCount());
+            for (int i = 0; i < common; i++) {
+                final Path firstName = first.getName(i);
+                final Path secondName = second.getName(i);
+                if (!firstName.equals(secondName)) {
+                    final int result = names.compare(firstName, secondName);
+                    if (result != 0) {
+                        return result;
+                    }
+                }
+            }
+            final int depth = Integer.compare(first.getNameCount(), second.getNameCount());
+            return postOrder ? -depth : depth;
+        };
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Path> action) {
+        while (true) {
+            final Frame frame = frames.peek();
+            if (frame == null) {
+                return false;
+            }
+
+            if (frame.index < frame.entries.length) {
+                final Path entry = frame.entries[frame.index++];
+                if (Files.isDirectory(entry)) {
+                    frames.push(new Frame(entry, list(entry)));
+                    if (!postOrder && emitDirectories && accept(entry)) {
+                        action.accept(entry);
+                        return true;
+                    }
+                } else if (accept(entry)) {
+                    action.accept(entry);
+                    return true;
+                }
+            } else {
+                frames.pop();
+                if (postOrder && emitDirectories && frame.directory != null && accept(frame.directory)) {
+                    action.accept(frame.directory);
+                    return true;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Comparator<? super Path> getComparator() {
+        return order;
+    }
+
+    protected boolean accept(Path path) {
+        try {
+            return filter.accept(path);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    protected Path[] list(Path directory) {
+        final List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                entries.add(path);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        final Path[] result = entries.toArray(new Path[0]);
+        Arrays.sort(result, (first, second) -> names.compare(first.getFileName(), second.getFileName()));
+        return result;
+    }
+
+    static class Frame {
+        final Path directory;
+        final Path[] entries;
+        int index;
+
+        Frame(Path directory, Path[] entries) {
+            this.directory = directory;
+            this.entries = entries;
+        }
+    }
+}
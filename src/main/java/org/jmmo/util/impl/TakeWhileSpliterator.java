@@ -0,0 +1,63 @@
+package org.jmmo.util.impl;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Spliterator over the longest prefix of the source elements which match the predicate.
+ * It is not split because the prefix length is unknown until the source is read.
+ */
+public class TakeWhileSpliterator<T> implements Spliterator<T>, Consumer<T> {
+    private final Spliterator<T> source;
+    private final Predicate<? super T> predicate;
+    private boolean finished;
+    private T current;
+
+    public TakeWhileSpliterator(Spliterator<T> source, Predicate<? super T> predicate) {
+        this.source = source;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (finished) {
+            return false;
+        }
+        if (source.tryAdvance(this) && predicate.test(current)) {
+            final T element = current;
+            current = null;
+            action.accept(element);
+            return true;
+        }
+        finished = true;
+        current = null;
+        return false;
+    }
+
+    @Override
+    public void accept(T element) {
+        current = element;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return finished ? 0 : source.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return source.characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+    }
+
+    @Override
+    public Comparator<? super T> getComparator() {
+        return source.getComparator();
+    }
+}
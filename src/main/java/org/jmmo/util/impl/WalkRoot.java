@@ -0,0 +1,156 @@
+package org.jmmo.util.impl;
+
+import org.jmmo.util.GlobSet;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Root of a multi-root walk with the given roots inside it which are not walked separately.
+ * Entries under a nested root are matched relative to it as well as relative to the walked root,
+ * so collapsing nested roots does not change which entries are found.
+ * An instance keeps the directories walked only for some of the roots, so it serves a single walk.
+ */
+public class WalkRoot {
+    private final Path root;
+    private final Path absolute;
+    private final List<Path> nested = new ArrayList<>();
+    private final Map<Path, Set<Path>> hidden = new ConcurrentHashMap<>();
+
+    WalkRoot(Path root, Path absolute) {
+        this.root = root;
+        this.absolute = absolute;
+    }
+
+    /**
+     * @return the roots without duplicates, every root inside another one is attached to the outer one
+     */
+    public static List<WalkRoot> of(Collection<Path> roots) {
+        final List<Path> sorted = new ArrayList<>(roots);
+        sorted.sort(Comparator.comparingInt(root -> root.toAbsolutePath().normalize().getNameCount()));
+        final List<WalkRoot> result = new ArrayList<>();
+        for (Path root : sorted) {
+            final Path normalized = root.toAbsolutePath().normalize();
+            WalkRoot outer = null;
+            for (WalkRoot walkRoot : result) {
+                if (normalized.startsWith(walkRoot.absolute)) {
+                    outer = walkRoot;
+                    break;
+                }
+            }
+            if (outer == null) {
+                result.add(new WalkRoot(root, normalized));
+            } else if (!normalized.equals(outer.absolute) && !outer.nested.contains(normalized)) {
+                outer.nested.add(normalized);
+            }
+        }
+        return result;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * @return true if the entry matches the patterns relative to the root or to any nested root containing it
+     * and no directory between that root and the entry is excluded relative to it
+     */
+    public boolean matches(Path path, GlobSet patterns) {
+        if (nested.isEmpty()) {
+            return patterns.matches(relative(root, path));
+        }
+        final Path normalized = absolute(path);
+        if (!isHidden(absolute, normalized) && patterns.matches(relative(absolute, normalized))) {
+            return true;
+        }
+        for (Path nestedRoot : nested) {
+            if (!normalized.equals(nestedRoot) && normalized.startsWith(nestedRoot)
+                    && !isHidden(nestedRoot, normalized) && patterns.matches(relative(nestedRoot, normalized))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A directory which is excluded relative to some of the roots containing it is still walked
+     * if it is not excluded relative to another one or if there is a nested root inside it.
+     * It is remembered as hidden for the roots excluding it, so its entries are not matched relative to them.
+     * @return true if the directory is pruned relative to the root and to every nested root containing it
+     * and there is no nested root inside it
+     */
+    public boolean isPruned(Path directory, GlobSet patterns) {
+        if (nested.isEmpty()) {
+            return patterns.isPruned(relative(root, directory));
+        }
+        final Path normalized = absolute(directory);
+        final List<Path> excluding = new ArrayList<>();
+        boolean visible = false;
+        if (!isHidden(absolute, normalized)) {
+            if (patterns.isPruned(relative(absolute, normalized))) {
+                excluding.add(absolute);
+            } else {
+                visible = true;
+            }
+        }
+        for (Path nestedRoot : nested) {
+            if (normalized.equals(nestedRoot)) {
+                visible = true;
+            } else if (normalized.startsWith(nestedRoot) && !isHidden(nestedRoot, normalized)) {
+                if (patterns.isPruned(relative(nestedRoot, normalized))) {
+                    excluding.add(nestedRoot);
+                } else {
+                    visible = true;
+                }
+            }
+        }
+        if (!visible && !leadsToNested(normalized)) {
+            return true;
+        }
+        for (Path base : excluding) {
+            hidden.computeIfAbsent(base, key -> ConcurrentHashMap.newKeySet()).add(normalized);
+        }
+        return false;
+    }
+
+    private boolean leadsToNested(Path directory) {
+        for (Path nestedRoot : nested) {
+            if (!nestedRoot.equals(directory) && nestedRoot.startsWith(directory)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if a directory between the base and the path is excluded relative to the base
+     */
+    private boolean isHidden(Path base, Path path) {
+        final Set<Path> directories = hidden.get(base);
+        if (directories == null) {
+            return false;
+        }
+        for (Path parent = path.getParent(); parent != null && !parent.equals(base); parent = parent.getParent()) {
+            if (directories.contains(parent)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Path absolute(Path path) {
+        return absolute.resolve(root.relativize(path));
+    }
+
+    private static String relative(Path base, Path path) {
+        final String relative = base.relativize(path).toString();
+        final String separator = path.getFileSystem().getSeparator();
+        return "/".equals(separator) ? relative : relative.replace(separator, "/");
+    }
+}
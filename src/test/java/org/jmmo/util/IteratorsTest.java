@@ -0,0 +1,63 @@
+package org.jmmo.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class IteratorsTest {
+    final List<Integer> source = Arrays.asList(1, 2, 3, 4, 5);
+
+    Iterators<String> pipeline() {
+        return Iterators.from(source)
+                .map(i -> i * 10)
+                .filter(i -> i != 30)
+                .flatMap(i -> i % 20 == 0 ? Arrays.asList(i, null).iterator() : Collections.singletonList(i).iterator())
+                .map(String::valueOf);
+    }
+
+    @Test
+    public void testForEach() throws Exception {
+        final List<String> result = new ArrayList<>();
+        pipeline().forEach(result::add);
+        assertEquals(Arrays.asList("10", "20", "null", "40", "null", "50"), result);
+    }
+
+    @Test
+    public void testIterator() throws Exception {
+        final Iterator<String> iterator = pipeline().iterator();
+        assertEquals("10", iterator.next());
+        assertEquals("20", iterator.next());
+
+        final List<String> rest = new ArrayList<>();
+        iterator.forEachRemaining(rest::add);
+        assertEquals(Arrays.asList("null", "40", "null", "50"), rest);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        assertEquals(Arrays.asList("10", "20", "null"), pipeline().stream().limit(3).collect(Collectors.toList()));
+        assertEquals(0, Iterators.from(Collections.emptyIterator()).map(Object::toString).stream().count());
+    }
+
+    @Test
+    public void testFlatMap_lazyPull() throws Exception {
+        final Iterators<Integer> pipeline = Iterators.from(source)
+                .flatMap(i -> Stream.iterate(i, j -> j + 1).iterator())
+                .filter(i -> i % 2 == 0)
+                .flatMap(i -> Stream.generate(() -> i).iterator());
+        assertEquals(Arrays.asList(2, 2, 2), pipeline.stream().limit(3).collect(Collectors.toList()));
+
+        final Iterator<Integer> iterator = Iterators.from(source).flatMap(i -> Stream.iterate(i * 100, j -> j + 1).iterator()).iterator();
+        assertEquals(Integer.valueOf(100), iterator.next());
+        assertEquals(Integer.valueOf(101), iterator.next());
+    }
+}
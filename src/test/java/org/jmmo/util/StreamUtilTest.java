@@ -1,28 +1,67 @@
 package org.jmmo.util;
 
+import org.jmmo.util.impl.FilesIterator;
+import org.jmmo.util.impl.FilesSpliterator;
+import org.jmmo.util.impl.MappedBytesSpliterator;
+import org.jmmo.util.impl.PrefetchFilesIterator;
+import org.jmmo.util.impl.SortedFilesSpliterator;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.*;
 
 public class StreamUtilTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void testOptional() throws Exception {
         assertEquals(0, StreamUtil.optional(Optional.empty()).count());
@@ -31,6 +70,93 @@ public class StreamUtilTest {
         assertEquals(Collections.singletonList(10), StreamUtil.optional(optional).collect(Collectors.toList()));
     }
 
+    @Test
+    public void testFromIterator_sized() throws Exception {
+        final List<Integer> list = IntStream.range(0, 5000).boxed().collect(Collectors.toList());
+
+        final Spliterator<Integer> spliterator = StreamUtil.fromIterator(list.iterator(), list.size(), Spliterator.ORDERED).spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertEquals(5000, spliterator.estimateSize());
+        assertEquals(StreamUtil.DEFAULT_BATCH_SIZE, spliterator.trySplit().estimateSize());
+        assertEquals(5000 - StreamUtil.DEFAULT_BATCH_SIZE, spliterator.estimateSize());
+
+        assertEquals(list, StreamUtil.fromIterator(list.iterator(), Long.MAX_VALUE, 10, Spliterator.ORDERED).parallel().collect(Collectors.toList()));
+        assertEquals(list, StreamUtil.fromIterable(list).parallel().collect(Collectors.toList()));
+        assertEquals(list.size(), StreamUtil.fromIterable(new HashSet<>(list)).parallel().count());
+    }
+
+    @Test
+    public void testBatched() throws Exception {
+        assertEquals(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4), Collections.singletonList(5)),
+                StreamUtil.batched(Stream.of(1, 2, 3, 4, 5), 2).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(3, 7, 5),
+                StreamUtil.batched(Stream.of(1, 2, 3, 4, 5), 2, true).map(batch -> batch.stream().mapToInt(i -> i).sum()).collect(Collectors.toList()));
+
+        final List<Integer> list = IntStream.range(0, 10000).boxed().collect(Collectors.toList());
+        final List<List<Integer>> batches = StreamUtil.batched(list.parallelStream(), 7).collect(Collectors.toList());
+        assertEquals(1429, batches.size());
+        assertEquals(StreamUtil.batched(list.stream(), 7).collect(Collectors.toList()), batches);
+        assertEquals(1429, StreamUtil.batched(list.stream(), 7).spliterator().getExactSizeIfKnown());
+    }
+
+    @Test
+    public void testSliding() throws Exception {
+        assertEquals(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(2, 3, 4), Arrays.asList(3, 4, 5)),
+                StreamUtil.sliding(Stream.of(1, 2, 3, 4, 5), 3, 1).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(4, 5)),
+                StreamUtil.sliding(Stream.of(1, 2, 3, 4, 5, 6), 2, 3).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(3, 5, 7, 9),
+                StreamUtil.sliding(Stream.of(1, 2, 3, 4, 5), 2, 1, true).map(window -> window.get(0) + window.get(1)).collect(Collectors.toList()));
+        assertEquals(0, StreamUtil.sliding(Stream.of(1, 2), 3, 1).count());
+
+        final List<Integer> list = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        assertEquals(StreamUtil.sliding(list.stream(), 5, 2).collect(Collectors.toList()),
+                StreamUtil.sliding(list.parallelStream(), 5, 2).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testGrouping_unorderedParallel() throws Exception {
+        final Set<Integer> set = IntStream.range(0, 10000).boxed().collect(Collectors.toSet());
+
+        final List<List<Integer>> windows = StreamUtil.sliding(set.parallelStream(), 5, 2).collect(Collectors.toList());
+        assertEquals((10000 - 5) / 2 + 1, windows.size());
+        assertTrue(windows.stream().allMatch(window -> window.size() == 5));
+
+        final List<List<Integer>> batches = StreamUtil.batched(set.parallelStream().unordered(), 7).collect(Collectors.toList());
+        assertEquals(1429, batches.size());
+        assertEquals(1428, batches.stream().filter(batch -> batch.size() == 7).count());
+        assertEquals(10000, batches.stream().mapToInt(List::size).sum());
+
+        assertEquals(10000, StreamUtil.groupAdjacent(set.parallelStream(), i -> i).count());
+    }
+
+    @Test
+    public void testGroupAdjacent() throws Exception {
+        assertEquals(Arrays.asList(Arrays.asList("a", "ab"), Collections.singletonList("b"), Arrays.asList("ac", "ad")),
+                StreamUtil.groupAdjacent(Stream.of("a", "ab", "b", "ac", "ad"), s -> s.charAt(0)).collect(Collectors.toList()));
+        assertEquals(0, StreamUtil.groupAdjacent(Stream.empty(), Function.identity()).count());
+    }
+
+    @Test
+    public void testSupplyInt() throws Exception {
+        final int[] counter = new int[1];
+        assertArrayEquals(new int[] {0, 1, 2}, StreamUtil.supplyInt(() -> counter[0] < 3, () -> counter[0]++).toArray());
+        assertEquals(0, StreamUtil.supplyLong(() -> false, () -> 1L).count());
+        assertEquals(1.5, StreamUtil.supplyDouble(() -> true, () -> 0.5).limit(3).sum(), 0);
+    }
+
+    @Test
+    public void testPrimitiveIterators() throws Exception {
+        final PrimitiveIterator.OfInt iterator = StreamUtil.iteratorFilterInt(
+                StreamUtil.iteratorMapInt(IntStream.range(0, 10).iterator(), i -> i * 3), i -> i % 2 == 0);
+        assertArrayEquals(new int[] {0, 6, 12, 18, 24}, StreamUtil.fromIterator(iterator).toArray());
+
+        assertArrayEquals(new long[] {2, 3}, StreamUtil.fromIterator(StreamUtil.iteratorFilterLong(
+                StreamUtil.iteratorMapLong(LongStream.of(1, 2).iterator(), l -> l + 1), l -> l > 1)).toArray());
+        assertArrayEquals(new double[] {1}, StreamUtil.fromIterator(StreamUtil.iteratorFilterDouble(
+                StreamUtil.iteratorMapDouble(DoubleStream.of(1, 2).iterator(), d -> d / 2), d -> d > 0.5)).toArray(), 0);
+    }
+
     @Test
     public void testMatchGroups() throws Exception {
         final Pattern pattern = Pattern.compile("(\\d+)");
@@ -38,6 +164,93 @@ public class StreamUtilTest {
         assertEquals(Arrays.asList("25", "4"), StreamUtil.matchGroups(pattern.matcher("A B25CD E 4F")).collect(Collectors.toList()));
     }
 
+    @Test
+    public void testLines() throws Exception {
+        final Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, "first\r\n\nthird\nlast".getBytes(StandardCharsets.ISO_8859_1));
+
+        try (Stream<CharSequence> lines = StreamUtil.lines(file)) {
+            assertEquals(Arrays.asList("first", "", "third", "last"), lines.map(CharSequence::toString).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testRecords_parallel() throws Exception {
+        final Path file = temporaryFolder.newFile().toPath();
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            content.append(i).append(';');
+        }
+        Files.write(file, content.toString().getBytes(StandardCharsets.US_ASCII));
+
+        try (Stream<ByteBuffer> records = StreamUtil.records(file, (byte) ';')) {
+            assertEquals(4999950000L, records.parallel()
+                    .mapToLong(buffer -> Long.parseLong(StandardCharsets.US_ASCII.decode(buffer).toString()))
+                    .sum());
+        }
+        try (Stream<CharSequence> lines = StreamUtil.lines(file)) {
+            assertEquals(1, lines.count());
+        }
+    }
+
+    @Test
+    public void testRecords_windows() throws Exception {
+        final Path file = temporaryFolder.newFile().toPath();
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            content.append(i).append(';');
+        }
+        final char[] longRecord = new char[300];
+        Arrays.fill(longRecord, 'x');
+        content.append(longRecord).append(";last");
+        Files.write(file, content.toString().getBytes(StandardCharsets.US_ASCII));
+
+        try (FileChannel channel = FileChannel.open(file)) {
+            final AtomicInteger maps = new AtomicInteger();
+            final MappedBytesSpliterator spliterator = new MappedBytesSpliterator(channel, (byte) ';', 0, channel.size(), 64) {
+                @Override
+                protected MappedByteBuffer map(long start, int size) {
+                    maps.incrementAndGet();
+                    return super.map(start, size);
+                }
+            };
+            final List<String> records = StreamSupport.stream(spliterator, false)
+                    .map(buffer -> StandardCharsets.US_ASCII.decode(buffer).toString()).collect(Collectors.toList());
+
+            assertEquals(10002, records.size());
+            assertEquals("9999", records.get(9999));
+            assertEquals(new String(longRecord), records.get(10000));
+            assertEquals("last", records.get(10001));
+            assertTrue("Mapped " + maps.get() + " times", maps.get() < channel.size() / 64 * 2);
+        }
+    }
+
+    @Test
+    public void testMatches() throws Exception {
+        final Pattern pattern = Pattern.compile("(\\d+)");
+        final String input = "A B25CD E 4F";
+        assertEquals(Arrays.asList(3, 10), StreamUtil.matches(pattern.matcher(input)).map(match -> match.start(1)).collect(Collectors.toList()));
+
+        final List<String> groups = new ArrayList<>();
+        StreamUtil.forEachMatch(pattern.matcher(input), match -> groups.add(input.substring(match.start(1), match.end(1))));
+        assertEquals(Arrays.asList("25", "4"), groups);
+    }
+
+    @Test
+    public void testMatches_parallel() throws Exception {
+        final StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            input.append("line ").append(i).append('\n');
+        }
+        final Pattern pattern = Pattern.compile("^line (\\d+)$", Pattern.MULTILINE);
+
+        assertEquals(10000, StreamUtil.matches(pattern, input).parallel().count());
+
+        final LongAdder sum = new LongAdder();
+        StreamUtil.forEachMatchParallel(pattern, input, match -> sum.add(Long.parseLong(input.substring(match.start(1), match.end(1)))));
+        assertEquals(49995000L, sum.sum());
+    }
+
     @Test
     public void testCauses() throws Exception {
         final Exception e = new Exception();
@@ -47,6 +260,58 @@ public class StreamUtilTest {
         assertEquals(Arrays.asList(re, e), StreamUtil.causes(re).collect(Collectors.toList()));
     }
 
+    @Test
+    public void testCauses_cycle() throws Exception {
+        final Exception first = new Exception("first");
+        final Exception second = new Exception("second", first);
+        first.initCause(second);
+        assertEquals(Arrays.asList(first, second), StreamUtil.causes(first).collect(Collectors.toList()));
+
+        Throwable deep = new Exception();
+        final Throwable bottom = deep;
+        for (int i = 0; i < 100; i++) {
+            deep = new Exception(deep);
+        }
+        bottom.initCause(deep);
+        assertEquals(101, StreamUtil.causes(deep).count());
+    }
+
+    @Test
+    public void testCausesAndSuppressed() throws Exception {
+        final Exception cause = new Exception("cause");
+        final Exception root = new Exception("root", cause);
+        final Exception suppressed = new Exception("suppressed");
+        final Exception nested = new Exception("nested");
+        root.addSuppressed(suppressed);
+        cause.addSuppressed(nested);
+        suppressed.addSuppressed(root);
+        suppressed.addSuppressed(cause);
+
+        assertEquals(Arrays.asList(root, cause, nested, suppressed), StreamUtil.causesAndSuppressed(root).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(root, cause, suppressed, nested), StreamUtil.causesAndSuppressed(root, 5, true).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(root, cause, suppressed), StreamUtil.causesAndSuppressed(root, 1, false).collect(Collectors.toList()));
+
+        final Exception wide = new Exception();
+        final Exception back = new Exception();
+        back.addSuppressed(wide);
+        for (int i = 0; i < 100; i++) {
+            wide.addSuppressed(i % 2 == 0 ? new Exception() : back);
+        }
+        assertEquals(52, StreamUtil.causesAndSuppressed(wide).count());
+
+        final Exception below = new Exception("below");
+        final Exception shared = new Exception("shared", below);
+        final Exception second = new Exception("second", shared);
+        final Exception first = new Exception("first", second);
+        final Exception top = new Exception("top", first);
+        final Exception sibling = new Exception("sibling", shared);
+        top.addSuppressed(sibling);
+        assertEquals(Arrays.asList(top, first, second, shared, sibling, below),
+                StreamUtil.causesAndSuppressed(top, 3, false).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(top, first, sibling, second, shared, below),
+                StreamUtil.causesAndSuppressed(top, 3, true).collect(Collectors.toList()));
+    }
+
     @Test
     public void testFiles() throws Exception {
         final Path dir = Paths.get("target", "test-classes", "files");
@@ -56,6 +321,354 @@ public class StreamUtilTest {
         assertThat(filesList, containsInAnyOrder(dir.resolve("text.txt"), dir.resolve("sub").resolve("sub.txt")));
     }
 
+    @Test
+    public void testFilesWithAttributes() throws Exception {
+        final Path dir = Paths.get("target", "test-classes", "files");
+
+        final List<PathAttributes> files = StreamUtil.filesWithAttributes(dir, "*.txt").collect(Collectors.toList());
+        assertThat(files.stream().map(PathAttributes::getPath).collect(Collectors.toList()),
+                containsInAnyOrder(dir.resolve("text.txt"), dir.resolve("sub").resolve("sub.txt")));
+        for (PathAttributes file : files) {
+            assertTrue(file.getAttributes().isRegularFile());
+            assertEquals(Files.size(file.getPath()), file.getAttributes().size());
+        }
+
+        assertThat(StreamUtil.filesWithAttributes(dir, (path, attributes) -> attributes.size() > 0)
+                .map(PathAttributes::getPath).collect(Collectors.toList()), empty());
+    }
+
+    @Test
+    public void testFilesParallel() throws Exception {
+        final Path dir = Paths.get("target", "test-classes", "files");
+
+        final List<Path> filesList = StreamUtil.filesParallel(dir, "*.txt").collect(Collectors.toList());
+        assertThat(filesList, containsInAnyOrder(dir.resolve("text.txt"), dir.resolve("sub").resolve("sub.txt")));
+    }
+
+    @Test
+    public void testFilesParallel_tree() throws Exception {
+        final Path dir = temporaryFolder.getRoot().toPath();
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 5; j++) {
+                final Path sub = Files.createDirectories(dir.resolve("d" + i).resolve("d" + j));
+                for (int k = 0; k < 10; k++) {
+                    Files.createFile(sub.resolve("f" + k + ".txt"));
+                }
+            }
+            Files.createFile(dir.resolve("d" + i).resolve("f.cfg"));
+        }
+
+        final Set<Path> expected = StreamUtil.files(dir).collect(Collectors.toSet());
+        assertEquals(255, expected.size());
+
+        final List<Path> filesList = StreamUtil.filesParallel(dir).collect(Collectors.toList());
+        assertEquals(expected.size(), filesList.size());
+        assertEquals(expected, new HashSet<>(filesList));
+        assertEquals(250, StreamUtil.filesParallel(dir, "*.txt").count());
+    }
+
+    @Test
+    public void testFilesPrefetched() throws Exception {
+        final Path dir = Paths.get("target", "test-classes", "files");
+
+        assertThat(StreamUtil.filesPrefetched(dir, 2).collect(Collectors.toList()),
+                containsInAnyOrder(dir.resolve("text.txt"), dir.resolve("config.cfg"), dir.resolve("sub").resolve("sub.txt")));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            assertThat(StreamUtil.filesPrefetched(dir, "*.txt", 1, executor).collect(Collectors.toList()),
+                    containsInAnyOrder(dir.resolve("text.txt"), dir.resolve("sub").resolve("sub.txt")));
+            assertEquals(StreamUtil.directoriesAndFiles(dir).collect(Collectors.toList()),
+                    StreamUtil.directoriesAndFilesPrefetched(dir, 4, executor).collect(Collectors.toList()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFilesPrefetched_wide() throws Exception {
+        final Path dir = temporaryFolder.newFolder("wide").toPath();
+        for (int i = 0; i < 20; i++) {
+            Files.createFile(Files.createDirectory(dir.resolve("sub" + i)).resolve("file.txt"));
+        }
+
+        final boolean[] inExecutor = new boolean[1];
+        final AtomicInteger prefetched = new AtomicInteger();
+        final AtomicInteger readInPlace = new AtomicInteger();
+        // the filter is called for every file while its directory is listed
+        final PrefetchFilesIterator iterator = new PrefetchFilesIterator(dir, path -> {
+            if (!inExecutor[0]) {
+                readInPlace.incrementAndGet();
+            }
+            return true;
+        }, false, 2, task -> {
+            prefetched.incrementAndGet();
+            inExecutor[0] = true;
+            try {
+                task.run();
+            } finally {
+                inExecutor[0] = false;
+            }
+        });
+
+        final List<Path> files = new ArrayList<>();
+        iterator.forEachRemaining(files::add);
+        assertEquals(20, files.size());
+        assertEquals("Every subdirectory is read ahead of the consumer", 0, readInPlace.get());
+        assertTrue(prefetched.get() >= 20);
+    }
+
+    @Test
+    public void testFiles_walkOptions() throws Exception {
+        final Path dir = Paths.get("target", "test-classes", "files");
+
+        assertThat(StreamUtil.files(dir, "*.txt", WalkOptions.builder().maxDepth(1).build()).collect(Collectors.toList()),
+                contains(dir.resolve("text.txt")));
+        assertThat(StreamUtil.files(dir, WalkOptions.builder().prune(path -> path.endsWith("sub")).build()).collect(Collectors.toList()),
+                containsInAnyOrder(dir.resolve("text.txt"), dir.resolve("config.cfg")));
+        assertThat(StreamUtil.directories(dir, WalkOptions.builder().prune(path -> true).build()).collect(Collectors.toList()),
+                contains(dir.resolve("sub")));
+        assertThat(StreamUtil.directoriesAndFiles(dir, "sub*", WalkOptions.builder().maxDepth(0).build()).collect(Collectors.toList()),
+                empty());
+    }
+
+    @Test
+    public void testFiles_linkCycle() throws Exception {
+        final Path dir = temporaryFolder.getRoot().toPath();
+        final Path sub = Files.createDirectory(dir.resolve("sub"));
+        Files.createFile(sub.resolve("file.txt"));
+        try {
+            Files.createSymbolicLink(sub.resolve("loop"), dir);
+        } catch (UnsupportedOperationException | IOException e) {
+            return;
+        }
+
+        assertThat(StreamUtil.files(dir, WalkOptions.DEFAULT).collect(Collectors.toList()), contains(sub.resolve("file.txt")));
+        assertThat(StreamUtil.directoriesAndFiles(dir, WalkOptions.builder().followLinks(false).build()).collect(Collectors.toList()),
+                containsInAnyOrder(sub, sub.resolve("file.txt"), sub.resolve("loop")));
+    }
+
+    @Test
+    public void testFiles_globSet() throws Exception {
+        final Path root = temporaryFolder.newFolder("roots").toPath();
+        final Path a = Files.createDirectories(root.resolve("a"));
+        final Path b = Files.createDirectories(root.resolve("b"));
+        Files.createDirectories(a.resolve("src/main"));
+        Files.createDirectories(a.resolve("target/src"));
+        Files.createDirectories(b.resolve("src"));
+        Files.createFile(a.resolve("src/main/A.java"));
+        Files.createFile(a.resolve("src/B.txt"));
+        Files.createFile(a.resolve("target/src/C.java"));
+        Files.createFile(b.resolve("src/D.java"));
+        Files.createFile(root.resolve("E.java"));
+
+        final GlobSet patterns = GlobSet.builder().include("**/src/**/*.java").exclude("target").build();
+        assertThat(StreamUtil.files(Arrays.asList(a, root, b, a), patterns).collect(Collectors.toList()),
+                containsInAnyOrder(a.resolve("src/main/A.java"), b.resolve("src/D.java")));
+        assertThat(StreamUtil.files(Arrays.asList(a, b), GlobSet.of("*.java", "B.*")).collect(Collectors.toList()),
+                containsInAnyOrder(a.resolve("src/main/A.java"), a.resolve("src/B.txt"), a.resolve("target/src/C.java"), b.resolve("src/D.java")));
+
+        assertThat(StreamUtil.files(Arrays.asList(root, a), GlobSet.of("src/B.txt")).collect(Collectors.toList()),
+                contains(a.resolve("src/B.txt")));
+        assertThat(StreamUtil.files(Arrays.asList(root, a.resolve("target")), GlobSet.builder().include("src/*.java").exclude("target").build())
+                .collect(Collectors.toList()), contains(a.resolve("target/src/C.java")));
+
+        final Path x = Files.createDirectories(root.resolve("x/y"));
+        Files.createFile(root.resolve("x/z.java"));
+        Files.createFile(x.resolve("w.java"));
+        final GlobSet excludeX = GlobSet.builder().include("*.java").exclude("x").build();
+        assertThat(StreamUtil.files(Arrays.asList(root, x), excludeX).filter(path -> path.startsWith(root.resolve("x")))
+                .collect(Collectors.toList()), contains(x.resolve("w.java")));
+        assertThat(StreamUtil.files(Arrays.asList(x, root), excludeX).filter(path -> path.startsWith(root.resolve("x")))
+                .collect(Collectors.toList()), contains(x.resolve("w.java")));
+
+        assertTrue(GlobSet.of("*.java").matches("x/y/A.java"));
+        assertFalse(GlobSet.of("src/*.java").matches("src/a/B.java"));
+        assertTrue(GlobSet.of("/{a,b}/?.t[!y]t").matches("b/c.txt"));
+        assertFalse(GlobSet.of("{a,b}/?.t[!x]t").matches("b/c.txt"));
+        assertTrue(GlobSet.builder().exclude("**/build/**").build().isPruned("module/build"));
+    }
+
+    @Test
+    public void testPathTable() throws Exception {
+        final List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            paths.add(Paths.get("/root", "dir" + i % 10, "sub" + i % 7, "file" + i + ".txt"));
+        }
+        paths.add(Paths.get("relative", "path"));
+        paths.add(Paths.get("/"));
+        paths.add(Paths.get("/root", "dir1"));
+
+        final PathTable table = paths.parallelStream().collect(PathTable.collector());
+        assertEquals(paths.size(), table.size());
+        assertEquals(paths, table.stream().collect(Collectors.toList()));
+        assertEquals(paths, table.stream().parallel().collect(Collectors.toList()));
+        assertEquals(paths.get(500), table.get(500));
+        assertFalse(table.add(Paths.get("/root", "dir1")));
+        assertTrue(table.contains(Paths.get("/root/dir3/sub3/file3.txt")));
+        assertFalse(table.contains(Paths.get("/root/dir3")));
+        assertFalse(table.contains(Paths.get("relative")));
+        assertFalse(table.contains(Paths.get("absent")));
+        assertEquals(1000 + 1 + 1 + 10 + 70 + 2, table.nodeCount());
+
+        final PathTable first = paths.subList(0, 600).stream().collect(PathTable.collector());
+        final PathTable second = paths.subList(400, paths.size()).stream().collect(PathTable.collector());
+        first.addAll(second);
+        assertEquals(paths, first.stream().collect(Collectors.toList()));
+        assertEquals(table.nodeCount(), first.nodeCount());
+        assertEquals(table.segmentCount(), first.segmentCount());
+        assertTrue(first.contains(Paths.get("relative", "path")));
+    }
+
+    @Test
+    public void testFilesSorted() throws Exception {
+        final Path dir = Paths.get("target", "test-classes", "files");
+        final Path sub = dir.resolve("sub");
+
+        assertEquals(Arrays.asList(dir.resolve("config.cfg"), sub.resolve("sub.txt"), dir.resolve("text.txt")),
+                StreamUtil.filesSorted(dir).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(sub.resolve("sub.txt"), dir.resolve("text.txt")),
+                StreamUtil.filesSorted(dir, "*.txt").collect(Collectors.toList()));
+        assertEquals(Arrays.asList(dir.resolve("text.txt"), sub, sub.resolve("sub.txt"), dir.resolve("config.cfg")),
+                StreamUtil.directoriesAndFilesSorted(dir, Comparator.<Path>reverseOrder(), false).collect(Collectors.toList()));
+
+        final List<Path> postOrder = StreamUtil.directoriesAndFilesSorted(dir, Comparator.naturalOrder(), true).collect(Collectors.toList());
+        assertEquals(Arrays.asList(dir.resolve("config.cfg"), sub.resolve("sub.txt"), sub, dir.resolve("text.txt")), postOrder);
+        final List<Path> sorted = new ArrayList<>(postOrder);
+        Collections.shuffle(sorted);
+        sorted.sort(SortedFilesSpliterator.treeOrder(Comparator.naturalOrder(), true));
+        assertEquals(postOrder, sorted);
+    }
+
+    @Test
+    public void testFiles_stats() throws Exception {
+        final Path dir = Paths.get("target", "test-classes", "files");
+        final WalkStats stats = new WalkStats();
+
+        final AtomicInteger consumed = new AtomicInteger();
+        StreamUtil.files(dir, "*.txt", WalkOptions.builder().stats(stats).build()).forEach(path -> {
+            consumed.incrementAndGet();
+            StreamUtil.uninterrupted(() -> Thread.sleep(5));
+        });
+        assertEquals(2, consumed.get());
+        assertEquals(2, stats.getDirectoriesOpened());
+        assertEquals(4, stats.getEntriesRead());
+        assertEquals(4, stats.getAttributesRead());
+        assertEquals(2, stats.getFilterRejections());
+        assertEquals(1, stats.getMaxPendingDirectories());
+        assertTrue(stats.getOpenNanos() > 0);
+        assertTrue(stats.getReadNanos() > 0);
+        assertTrue(stats.getAttributesNanos() > 0);
+        assertTrue(stats.getConsumerNanos() >= TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    @Test
+    public void testFiles_cancelSignal() throws Exception {
+        final Path dir = Paths.get("target", "test-classes", "files");
+        final CancelSignal signal = new CancelSignal();
+
+        assertThat(StreamUtil.directoriesAndFiles(dir, WalkOptions.builder().cancelSignal(signal).build())
+                .peek(path -> signal.cancel()).count(), is(1L));
+    }
+
+    @Test
+    public void testFiles_close() throws Exception {
+        final Path dir = Paths.get("target", "test-classes", "files");
+
+        final FilesIterator iterator = new FilesIterator(dir);
+        assertThat(iterator.hasNext(), is(true));
+        iterator.close();
+        assertThat(iterator.hasNext(), is(false));
+
+        final FilesSpliterator spliterator = new FilesSpliterator(dir);
+        final Spliterator<Path> prefix = spliterator.trySplit();
+        spliterator.close();
+        assertThat(spliterator.tryAdvance(path -> {}), is(false));
+        assertThat(prefix == null || !prefix.tryAdvance(path -> {}), is(true));
+
+        try (Stream<Path> files = StreamUtil.files(dir)) {
+            assertThat(files.findFirst().isPresent(), is(true));
+        }
+    }
+
+    @Test
+    public void testCancelable() throws Exception {
+        final CancelSignal signal = new CancelSignal();
+        final AtomicInteger counter = new AtomicInteger();
+
+        assertThat(StreamUtil.cancelable(StreamUtil.supply(counter::incrementAndGet), signal)
+                .peek(i -> { if (i == 3) signal.cancel(); }).collect(Collectors.toList()), contains(1, 2, 3));
+    }
+
+    @Test
+    public void testForEachWhile() throws Exception {
+        final List<Integer> seen = new ArrayList<>();
+        assertEquals(Optional.of(3), StreamUtil.forEachWhile(Stream.of(1, 2, 3, 4), i -> seen.add(i) && i < 3));
+        assertEquals(Arrays.asList(1, 2, 3), seen);
+        assertEquals(Optional.empty(), StreamUtil.forEachWhile(Stream.of(1, 2), i -> true));
+
+        final boolean[] closed = {false};
+        assertEquals(Optional.of(2), StreamUtil.forEachWhile(Stream.of(1, 2, 3).onClose(() -> closed[0] = true), i -> i < 2));
+        assertTrue(closed[0]);
+
+        try {
+            StreamUtil.forEachWhile(Stream.of(1, null, 3), i -> true);
+            fail();
+        } catch (NullPointerException ignored) {
+        }
+        try {
+            StreamUtil.forEachWhile(Stream.of(1, null), i -> i == null || i < 2);
+            fail();
+        } catch (NullPointerException ignored) {
+        }
+    }
+
+    @Test
+    public void testTakeWhileDropWhile() throws Exception {
+        assertEquals(Arrays.asList(1, 2), StreamUtil.takeWhile(Stream.of(1, 2, 3, 1), i -> i < 3).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(3, 1), StreamUtil.dropWhile(Stream.of(1, 2, 3, 1), i -> i < 3).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(1, 2, 3), StreamUtil.takeWhile(StreamUtil.supply(new AtomicInteger()::incrementAndGet), i -> i <= 3)
+                .collect(Collectors.toList()));
+
+        final List<Integer> list = IntStream.range(0, 10000).boxed().collect(Collectors.toList());
+        assertEquals(list.subList(100, 10000), StreamUtil.dropWhile(list.parallelStream(), i -> i < 100).collect(Collectors.toList()));
+        assertEquals(list.subList(0, 100), StreamUtil.takeWhile(list.parallelStream(), i -> i < 100).collect(Collectors.toList()));
+
+        final Spliterator<Integer> dropped = StreamUtil.dropWhile(list.stream(), i -> i < 100).spliterator();
+        final int characteristics = dropped.characteristics();
+        assertFalse(dropped.hasCharacteristics(Spliterator.SIZED));
+        assertTrue(dropped.tryAdvance(i -> assertEquals(100, i.intValue())));
+        assertEquals(characteristics, dropped.characteristics());
+    }
+
+    @Test
+    public void testFileDigests_duplicates() throws Exception {
+        final Path dir = temporaryFolder.newFolder("digests").toPath();
+        final byte[] content = new byte[10000];
+        Arrays.fill(content, (byte) 'a');
+        Files.write(dir.resolve("a.bin"), content);
+        Files.write(dir.resolve("b.bin"), content);
+        content[5000] = 'b';
+        Files.write(dir.resolve("middle.bin"), content);
+        content[5000] = 'a';
+        content[0] = 'b';
+        Files.write(dir.resolve("head.bin"), content);
+        Files.write(dir.resolve("small1.bin"), "small".getBytes(StandardCharsets.US_ASCII));
+        Files.write(dir.resolve("small2.bin"), "small".getBytes(StandardCharsets.US_ASCII));
+        Files.write(dir.resolve("other.bin"), "other".getBytes(StandardCharsets.US_ASCII));
+        Files.createFile(dir.resolve("empty1.bin"));
+        Files.createFile(dir.resolve("empty2.bin"));
+
+        final Set<Set<Path>> expected = new HashSet<>(Arrays.asList(
+                new HashSet<>(Arrays.asList(dir.resolve("a.bin"), dir.resolve("b.bin"))),
+                new HashSet<>(Arrays.asList(dir.resolve("small1.bin"), dir.resolve("small2.bin"))),
+                new HashSet<>(Arrays.asList(dir.resolve("empty1.bin"), dir.resolve("empty2.bin")))));
+        assertEquals(expected, FileDigests.DEFAULT.duplicates(StreamUtil.files(dir)).map(HashSet::new).collect(Collectors.toSet()));
+        assertEquals(expected, new FileDigests("MD5", 16, 64).duplicatesWithAttributes(StreamUtil.filesWithAttributes(dir, "*.bin"))
+                .map(HashSet::new).collect(Collectors.toSet()));
+        assertArrayEquals(FileDigests.DEFAULT.digest(dir.resolve("a.bin")), FileDigests.DEFAULT.digest(dir.resolve("b.bin")));
+    }
+
     @Test
     public void testDirectoriesAndFiles() throws Exception {
         final Path dir = Paths.get("target", "test-classes", "files");
@@ -83,6 +696,128 @@ public class StreamUtilTest {
         assertThat(filesList, empty());
     }
 
+    @Test
+    public void testChanges() throws Exception {
+        final Path dir = temporaryFolder.newFolder("tree").toPath();
+        final Path sub = Files.createDirectory(dir.resolve("sub"));
+        Files.createDirectory(sub.resolve("deep"));
+        Files.createFile(sub.resolve("deep").resolve("gone.txt"));
+        Files.createFile(dir.resolve("same.txt"));
+        final Path changed = Files.createFile(sub.resolve("changed.txt"));
+
+        final DirectorySnapshot snapshot = DirectorySnapshot.take(dir);
+        assertEquals(5, snapshot.size());
+        assertThat(StreamUtil.changes(dir, snapshot).collect(Collectors.toList()), empty());
+
+        final Path snapshotFile = temporaryFolder.getRoot().toPath().resolve("snapshot.bin");
+        snapshot.save(snapshotFile);
+        final DirectorySnapshot loaded = DirectorySnapshot.load(snapshotFile);
+        assertEquals(snapshot.getTime(), loaded.getTime());
+        assertEquals(snapshot.getDirectories().keySet(), loaded.getDirectories().keySet());
+        assertEquals(snapshot.getDirectory("sub").getChildren(), loaded.getDirectory("sub").getChildren());
+
+        Files.write(changed, new byte[] {1, 2, 3});
+        final Path added = Files.createFile(dir.resolve("added.txt"));
+        Files.delete(sub.resolve("deep").resolve("gone.txt"));
+        Files.delete(sub.resolve("deep"));
+
+        final Holder<DirectorySnapshot> updated = new Holder<>();
+        assertThat(StreamUtil.changes(dir, loaded, updated::setValue).collect(Collectors.toList()), containsInAnyOrder(
+                new PathChange(PathChange.Type.MODIFIED, changed, false, null),
+                new PathChange(PathChange.Type.ADDED, added, false, null),
+                new PathChange(PathChange.Type.DELETED, sub.resolve("deep"), true, null),
+                new PathChange(PathChange.Type.DELETED, sub.resolve("deep").resolve("gone.txt"), false, null)));
+        assertEquals(4, updated.getValue().size());
+        assertThat(StreamUtil.changes(dir, updated.getValue()).collect(Collectors.toList()), empty());
+    }
+
+    @Test
+    public void testChanges_unchangedDirectories() throws Exception {
+        final Path dir = temporaryFolder.newFolder("old").toPath();
+        final Path sub = Files.createDirectory(dir.resolve("sub"));
+        final Path changed = Files.createFile(sub.resolve("changed.txt"));
+        Files.createFile(dir.resolve("same.txt"));
+        final FileTime old = FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+        Files.setLastModifiedTime(sub, old);
+        Files.setLastModifiedTime(dir, old);
+        final DirectorySnapshot snapshot = DirectorySnapshot.take(dir);
+
+        Files.write(changed, new byte[] {1, 2, 3});
+        final Path unseen = Files.createFile(sub.resolve("unseen.txt"));
+        Files.setLastModifiedTime(sub, old);
+        assertThat(StreamUtil.changes(dir, snapshot).collect(Collectors.toList()), contains(
+                new PathChange(PathChange.Type.MODIFIED, changed, false, null)));
+
+        final Path added = Files.createFile(dir.resolve("added.txt"));
+        Files.setLastModifiedTime(sub, FileTime.fromMillis(System.currentTimeMillis()));
+        assertThat(StreamUtil.changes(dir, snapshot).collect(Collectors.toList()), containsInAnyOrder(
+                new PathChange(PathChange.Type.MODIFIED, changed, false, null),
+                new PathChange(PathChange.Type.ADDED, unseen, false, null),
+                new PathChange(PathChange.Type.ADDED, added, false, null)));
+    }
+
+    @Test
+    public void testMapConcurrent() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final List<Integer> result = StreamUtil.mapConcurrent(IntStream.range(0, 50).boxed(), 4, i -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            StreamUtil.uninterrupted(() -> Thread.sleep(50 - i));
+            running.decrementAndGet();
+            return i * 2;
+        }).collect(Collectors.toList());
+
+        assertEquals(IntStream.range(0, 50).map(i -> i * 2).boxed().collect(Collectors.toList()), result);
+        assertTrue(maxRunning.get() <= 4);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            assertThat(StreamUtil.mapConcurrent(Stream.of(3, 1, 2), 3, false, executor, i -> i).collect(Collectors.toList()),
+                    containsInAnyOrder(1, 2, 3));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testMapConcurrent_exception() throws Exception {
+        StreamUtil.mapConcurrent(Stream.of(1, 2), 2, i -> StreamUtil.unchecked(() -> {
+            if (i == 2) {
+                throw new IOException();
+            }
+            return i;
+        })).forEach(i -> {});
+    }
+
+    @Test
+    public void testMapConcurrent_close() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Stream<Object> stream = StreamUtil.mapConcurrent(Stream.of(1), 1, i -> {
+            started.countDown();
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return i;
+        });
+
+        final Iterator<Object> iterator = stream.iterator();
+        final Thread consumer = new Thread(() -> {
+            try {
+                iterator.next();
+            } catch (CancellationException ignored) {
+            }
+        });
+        consumer.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        stream.close();
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        consumer.join(5000);
+        assertFalse(consumer.isAlive());
+    }
+
     void method(int a, String b) throws IOException, InterruptedException { }
     boolean isSomething(int a, String b) throws IOException, TimeoutException { return true; }
 
@@ -108,10 +843,119 @@ public class StreamUtilTest {
         assertEquals("-null-", MessageFormat.format("-{0}-", LazyToString.of(() -> null)));
     }
 
+    @Test
+    public void testLazyToString_memoized() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        final LazyToString once = LazyToString.once(counter::incrementAndGet);
+        assertEquals("1", once.toString());
+        assertEquals("1", once.toString());
+
+        final LazyToString always = LazyToString.builder(counter::incrementAndGet).always().build();
+        assertEquals("2", always.toString());
+        assertEquals("3", always.toString());
+
+        final LazyToString perThread = LazyToString.builder(counter::incrementAndGet).perThread().build();
+        assertEquals("4", perThread.toString());
+        assertEquals("4", perThread.toString());
+        final Thread thread = new Thread(perThread::toString);
+        thread.start();
+        thread.join();
+        assertEquals(5, counter.get());
+
+        final LazyToString expiring = LazyToString.builder(counter::incrementAndGet).expireAfter(Duration.ZERO).build();
+        assertEquals("6", expiring.toString());
+        assertEquals("7", expiring.toString());
+
+        assertEquals("abc...(5 chars)", LazyToString.builder(() -> "abcde").maxLength(3).build().toString());
+        assertEquals("abcde", LazyToString.builder(() -> "abcde").maxLength(5).build().toString());
+    }
+
     String wannaFunc(Function<Integer, String> function) {
         return function.apply(1);
     }
 
+    @Test
+    public void testUncheckedAdapters() throws Exception {
+        final Path dir = Paths.get("target", "test-classes", "files");
+        final List<Long> sizes = new ArrayList<>();
+        Stream.of(dir.resolve("text.txt"))
+                .filter(StreamUtil.uncheckedP(path -> Files.size(path) >= 0))
+                .map(StreamUtil.uncheckedF(Files::size))
+                .forEach(StreamUtil.uncheckedC(sizes::add));
+        assertEquals(Collections.singletonList(0L), sizes);
+        assertEquals(Integer.valueOf(3), StreamUtil.<Integer, Integer, Integer>uncheckedBF(Integer::sum).apply(1, 2));
+
+        try {
+            Stream.of(dir.resolve("absent")).map(StreamUtil.uncheckedF(Files::size)).collect(Collectors.toList());
+            fail();
+        } catch (Exception e) {
+            assertTrue(e instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testHolders() throws Exception {
+        final IntHolder intHolder = new IntHolder();
+        assertFalse(intHolder.toOptional().isPresent());
+        IntStream.range(0, 10).forEach(i -> intHolder.add(i));
+        assertEquals(OptionalInt.of(45), intHolder.toOptional());
+
+        final ConcurrentLongHolder max = new ConcurrentLongHolder(Long.MIN_VALUE);
+        final StripedLongHolder counter = new StripedLongHolder();
+        final ConcurrentDoubleHolder sum = new ConcurrentDoubleHolder();
+        final ConcurrentHolder<String> longest = new ConcurrentHolder<>("");
+        IntStream.range(0, 10000).parallel().forEach(i -> {
+            max.accumulateAndGet(i, Math::max);
+            counter.increment();
+            sum.add(0.5);
+            longest.accumulateAndGet(String.valueOf(i), (a, b) -> a.length() >= b.length() ? a : b);
+        });
+        assertEquals(9999, max.getValue());
+        assertEquals(OptionalLong.of(10000), counter.toOptional());
+        assertEquals(5000, sum.getValue(), 0);
+        assertEquals(4, longest.getValue().length());
+        assertFalse(new StripedDoubleHolder().toOptional().isPresent());
+
+        final ConcurrentIntHolder intCas = new ConcurrentIntHolder();
+        assertFalse(intCas.compareAndSet(5, 6));
+        assertEquals(OptionalInt.empty(), intCas.toOptional());
+        final ConcurrentLongHolder longCas = new ConcurrentLongHolder();
+        assertFalse(longCas.compareAndSet(5, 6));
+        assertEquals(OptionalLong.empty(), longCas.toOptional());
+        final ConcurrentDoubleHolder doubleCas = new ConcurrentDoubleHolder();
+        assertFalse(doubleCas.compareAndSet(5, 6));
+        assertEquals(OptionalDouble.empty(), doubleCas.toOptional());
+        assertTrue(doubleCas.compareAndSet(0, 6));
+        assertEquals(OptionalDouble.of(6), doubleCas.toOptional());
+
+        final ConcurrentIntHolder failing = new ConcurrentIntHolder();
+        try {
+            failing.updateAndGet(i -> {
+                throw new IllegalStateException();
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(OptionalInt.empty(), failing.toOptional());
+        }
+        try {
+            doubleCas.accumulateAndGet(1, (a, b) -> {
+                throw new IllegalStateException();
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(OptionalDouble.of(6), doubleCas.toOptional());
+        }
+        final ConcurrentDoubleHolder failingDouble = new ConcurrentDoubleHolder();
+        try {
+            failingDouble.updateAndGet(d -> {
+                throw new IllegalStateException();
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertFalse(failingDouble.isPresent());
+        }
+    }
+
     @Test
     public void testResult() throws Exception {
         assertNull(wannaFunc((a) -> StreamUtil.resultNull(() -> {})));
@@ -154,4 +998,78 @@ public class StreamUtilTest {
         assertNull(throwableHolder[0]);
         assertTrue(boolHolder[0]);
     }
+
+    @Test
+    public void testRetrying() throws Exception {
+        final RetryPolicy policy = RetryPolicy.builder().maxAttempts(3).initialDelay(Duration.ZERO).build();
+        final AtomicInteger attempts = new AtomicInteger();
+
+        assertEquals("ok", StreamUtil.retrying(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IOException("flaky");
+            }
+            return "ok";
+        }, policy));
+
+        attempts.set(0);
+        try {
+            StreamUtil.retrying(() -> { throw new IOException("failure " + attempts.incrementAndGet()); }, policy);
+            fail();
+        } catch (Exception e) {
+            assertEquals("failure 3", e.getMessage());
+            assertEquals("failure 2", e.getSuppressed()[0].getMessage());
+        }
+
+        attempts.set(0);
+        try {
+            StreamUtil.retrying(() -> { attempts.incrementAndGet(); throw new IOException(); },
+                    RetryPolicy.builder().retryOn(IllegalStateException.class).build());
+            fail();
+        } catch (Exception e) {
+            assertEquals(1, attempts.get());
+        }
+
+        attempts.set(0);
+        try {
+            StreamUtil.retrying(() -> { attempts.incrementAndGet(); throw new IOException(); },
+                    RetryPolicy.builder().maxAttempts(10).initialDelay(Duration.ofSeconds(1)).jitter(0).build(), Deadline.after(Duration.ofMillis(500)));
+            fail();
+        } catch (Exception e) {
+            assertEquals(1, attempts.get());
+        }
+
+        assertEquals(400_000_000L, RetryPolicy.builder().jitter(0).build().delayNanos(3, 0.5));
+        assertEquals(200_000_000L, RetryPolicy.builder().build().delayNanos(3, 1));
+    }
+
+    @Test
+    public void testWithTimeout() throws Exception {
+        assertEquals(Integer.valueOf(1), StreamUtil.withTimeout(() -> 1, Duration.ofSeconds(10)));
+
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            StreamUtil.withTimeout(() -> {
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+                return 1;
+            }, Duration.ofMillis(50));
+            fail();
+        } catch (Exception e) {
+            assertTrue(e instanceof TimeoutException);
+        }
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+
+        Thread.currentThread().interrupt();
+        try {
+            StreamUtil.withTimeout(() -> 1, Deadline.none(), runnable -> {});
+            fail();
+        } catch (Exception e) {
+            assertTrue(e instanceof InterruptedException);
+            assertTrue(Thread.interrupted());
+        }
+    }
 }